@@ -0,0 +1,46 @@
+'''Compares two JMH result files, such as benchmarks/baseline.json and a new
+benchmarks/jmh-result.json, and prints the time and allocation per operation
+of each benchmark in both, with the ratio of new to old.
+Usage: python3 compare_benchmarks.py OLD.json NEW.json'''
+import json
+import sys
+
+def load(filename):
+    '''Maps each benchmark name and its parameters to (score, unit, bytes/op)'''
+    results = {}
+    with open(filename) as f:
+        for run in json.load(f):
+            name = run['benchmark'].rsplit('.', 2)[-2:]
+            name = '.'.join(name)
+            params = run.get('params', {})
+            if params:
+                name += ' ' + ','.join(k + '=' + v for k, v in sorted(params.items()))
+            primary = run['primaryMetric']
+            alloc = run.get('secondaryMetrics', {}).get('·gc.alloc.rate.norm')
+            results[name] = (primary['score'], primary['scoreUnit'],
+                alloc['score'] if alloc else None)
+    return results
+
+def ratio(old, new):
+    if old is None or new is None:
+        return '-'
+    if old == 0:
+        return '-' if new == 0 else 'new'
+    return '%.2f' % (new / old)
+
+def compare(old, new):
+    print('%-44s %12s %12s %6s %10s %10s %6s' % ('benchmark', 'old', 'new', 'x',
+        'old B/op', 'new B/op', 'x'))
+    for name in sorted(set(old) | set(new)):
+        o = old.get(name, (None, '', None))
+        n = new.get(name, (None, '', None))
+        def fmt(v):
+            return '-' if v is None else '%.1f' % v
+        print('%-44s %12s %12s %6s %10s %10s %6s' % (name, fmt(o[0]), fmt(n[0]),
+            ratio(o[0], n[0]), fmt(o[2]), fmt(n[2]), ratio(o[2], n[2])))
+
+if __name__ == '__main__':
+    if len(sys.argv) != 3:
+        print(__doc__)
+        sys.exit(1)
+    compare(load(sys.argv[1]), load(sys.argv[2]))
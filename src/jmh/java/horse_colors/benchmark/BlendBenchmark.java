@@ -0,0 +1,60 @@
+package sekelsta.horse_colors.benchmark;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+import sekelsta.horse_colors.client.renderer.ArrayLayerImage;
+import sekelsta.horse_colors.tools.BlendCase;
+import sekelsta.horse_colors.tools.FileLayerLoader;
+import sekelsta.horse_colors.tools.HeadlessSetup;
+
+// Time per pixel of each compositing blend mode. The golden images checked
+// by the checkCoats task make sure a faster version still gives the same colors.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BlendBenchmark {
+    // The horse textures are all 128x128
+    private static final int PIXELS = 128 * 128;
+
+    @Param({"normal", "no_alpha", "mask", "shade", "highlight", "power", "root"})
+    public String mode;
+
+    private BlendCase blend;
+    private ArrayLayerImage base;
+    private ArrayLayerImage overlay;
+    private ArrayLayerImage work;
+
+    @Setup
+    public void setup() throws IOException {
+        for (BlendCase c : BlendCase.all()) {
+            if (c.name.equals(mode)) {
+                blend = c;
+            }
+        }
+        FileLayerLoader loader = new FileLayerLoader(HeadlessSetup.projectFile(HeadlessSetup.ASSET_DIR));
+        base = (ArrayLayerImage)blend.base.getLayer(loader);
+        blend.base.colorLayer(base);
+        overlay = (ArrayLayerImage)blend.overlay.getLayer(loader);
+        if (overlay.getWidth() * overlay.getHeight() != PIXELS) {
+            throw new IllegalStateException("Expected " + PIXELS + " pixels in " + blend.overlay.name);
+        }
+        work = new ArrayLayerImage(base);
+    }
+
+    @Setup(Level.Invocation)
+    public void reset() {
+        System.arraycopy(base.pixels, 0, work.pixels, 0, PIXELS);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(PIXELS)
+    public ArrayLayerImage combineLayers() {
+        blend.overlay.combineLayers(work, overlay);
+        return work;
+    }
+}
@@ -0,0 +1,141 @@
+package sekelsta.horse_colors.benchmark;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.*;
+
+import sekelsta.horse_colors.breed.horse.DefaultHorse;
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+import sekelsta.horse_colors.entity.genetics.FakeGeneticEntity;
+import sekelsta.horse_colors.entity.genetics.Genome;
+import sekelsta.horse_colors.entity.genetics.HorseColorCalculator;
+import sekelsta.horse_colors.entity.genetics.Species;
+import sekelsta.horse_colors.tools.CoatRenderer;
+import sekelsta.horse_colors.tools.HeadlessSetup;
+
+// The genetics code that runs whenever a horse spawns, breeds, or is loaded
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@State(Scope.Thread)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class GeneticsBenchmark {
+    private EquineGenome mother;
+    private EquineGenome father;
+    private EquineGenome child;
+    private String geneString;
+    private Map<String, Integer> legacyGenes;
+    private int allele;
+    private FakeGeneticEntity stringEntity;
+    private EquineGenome stringGenome;
+
+    // Asks for the gene version as soon as its genes are set, the way
+    // AbstractHorseGenetic does when the synced genes change, so the
+    // benchmarks see the same hashing work as a real horse
+    private static class SyncingEntity extends FakeGeneticEntity {
+        private Genome genome;
+
+        @Override
+        public void setGeneData(String genes) {
+            super.setGeneData(genes);
+            if (genome != null) {
+                genome.getGeneVersion();
+            }
+        }
+    }
+
+    @Setup
+    public void setup() throws IOException {
+        HeadlessSetup.loadDefaultConfig();
+        HeadlessSetup.loadBreeds(HeadlessSetup.projectFile(HeadlessSetup.BREED_DIR));
+        List<EquineGenome> parents = CoatRenderer.randomGenomes(2, 42, null, 0);
+        mother = parents.get(0);
+        father = parents.get(1);
+        SyncingEntity entity = new SyncingEntity();
+        entity.setDefaultBreed(DefaultHorse.breed);
+        child = new EquineGenome(Species.HORSE, entity);
+        entity.genome = child;
+        child.inheritGenes(mother, father);
+        geneString = mother.genesToString();
+        stringEntity = new FakeGeneticEntity();
+        stringGenome = new EquineGenome(Species.HORSE, stringEntity);
+        stringGenome.genesFromString(geneString);
+        legacyGenes = mother.getLegacyGenes();
+    }
+
+    @Benchmark
+    public EquineGenome inheritGenes() {
+        child.inheritGenes(mother, father);
+        return child;
+    }
+
+    @Benchmark
+    public EquineGenome mutate() {
+        child.mutate();
+        return child;
+    }
+
+    // One allele that changes every time
+    @Benchmark
+    public EquineGenome setAllele() {
+        allele = 1 - allele;
+        child.setAllele(EquineGenome.Gene.extension, 0, allele);
+        return child;
+    }
+
+    @Benchmark
+    public EquineGenome randomize() {
+        child.randomize(DefaultHorse.breed);
+        return child;
+    }
+
+    @Benchmark
+    public float getGeneticScale() {
+        return mother.getGeneticScale();
+    }
+
+    @Benchmark
+    public float getHealth() {
+        return mother.getHealth();
+    }
+
+    // Flips the sex first, which is part of the string, so the cached
+    // string cannot be used and it is built every time
+    @Benchmark
+    public String genesToString() {
+        stringEntity.setMale(!stringEntity.isMale());
+        return stringGenome.genesToString();
+    }
+
+    // A save or gene book with nothing changed since the last one
+    @Benchmark
+    public String genesToStringCached() {
+        return mother.genesToString();
+    }
+
+    @Benchmark
+    public EquineGenome genesFromString() {
+        child.genesFromString(geneString);
+        return child;
+    }
+
+    @Benchmark
+    public Map<String, Integer> getLegacyGenes() {
+        return mother.getLegacyGenes();
+    }
+
+    @Benchmark
+    public EquineGenome setLegacyGenes() {
+        child.setLegacyGenes(legacyGenes);
+        return child;
+    }
+
+    @Benchmark
+    public TextureLayerGroup getTexturePaths() {
+        return HorseColorCalculator.getTexturePaths(mother);
+    }
+}
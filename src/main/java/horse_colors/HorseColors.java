@@ -19,9 +19,15 @@ import sekelsta.horse_colors.client.HorseGui;
 import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.entity.ModEntities;
 import sekelsta.horse_colors.client.ClientEventHandler;
+import sekelsta.horse_colors.client.ClientPacketHandler;
+import sekelsta.horse_colors.client.TexturePrebaker;
+import sekelsta.horse_colors.client.TextureWarmup;
+import sekelsta.horse_colors.client.renderer.CompositeScheduler;
 import sekelsta.horse_colors.item.ModItems;
 import sekelsta.horse_colors.network.HorseColorsPacketHandler;
+import sekelsta.horse_colors.network.TexturePlanSync;
 import sekelsta.horse_colors.world.HorseReplacer;
+import sekelsta.horse_colors.world.PregnancyScheduler;
 import sekelsta.horse_colors.world.Spawns;
 
 @Mod(HorseColors.MODID)
@@ -39,18 +45,31 @@ public class HorseColors
 
         FMLJavaModLoadingContext.get().getModEventBus().addListener(this::clientSetup);
         FMLJavaModLoadingContext.get().getModEventBus().addListener(Spawns::onLoadComplete);
+        FMLJavaModLoadingContext.get().getModEventBus().addListener(HorseConfig::onConfigChanged);
         MinecraftForge.EVENT_BUS.addListener(ContainerEventHandler::editContainer);
         MinecraftForge.EVENT_BUS.register(HorseReplacer.class);
 
         ModLoadingContext.get().registerConfig(ModConfig.Type.COMMON, HorseConfig.spec);
         HorseColorsPacketHandler.registerPackets();
         MinecraftForge.EVENT_BUS.addListener(BreedManager::addReloadListener);
+        MinecraftForge.EVENT_BUS.addListener(PregnancyScheduler::onWorldTick);
+        MinecraftForge.EVENT_BUS.addListener(PregnancyScheduler::onWorldUnload);
+        MinecraftForge.EVENT_BUS.addListener(TexturePlanSync::onServerStopped);
     }
 
     private void clientSetup(final FMLClientSetupEvent event)
     {
         MinecraftForge.EVENT_BUS.addListener(HorseGui::replaceGui);
         MinecraftForge.EVENT_BUS.addListener(ClientEventHandler::handleInteract);
+        MinecraftForge.EVENT_BUS.addListener(TextureWarmup::onEntityJoin);
+        MinecraftForge.EVENT_BUS.addListener(TextureWarmup::onEntityLeave);
+        MinecraftForge.EVENT_BUS.addListener(TextureWarmup::onWorldUnload);
+        MinecraftForge.EVENT_BUS.addListener(TextureWarmup::onLoggedOut);
+        MinecraftForge.EVENT_BUS.addListener(TextureWarmup::onClientTick);
+        MinecraftForge.EVENT_BUS.addListener(CompositeScheduler::onRenderTick);
+        MinecraftForge.EVENT_BUS.addListener(TexturePrebaker::onClientTick);
+        MinecraftForge.EVENT_BUS.addListener(ClientPacketHandler::onLoggedOut);
+        event.enqueueWork(TexturePrebaker::register);
         ModEntities.registerRenders();
     }
 }
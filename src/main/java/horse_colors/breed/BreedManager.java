@@ -27,6 +27,11 @@ public class BreedManager extends JsonReloadListener {
     }
 
     protected void apply(Map<ResourceLocation, JsonElement> mapIn, IResourceManager resourceManagerIn, IProfiler profilerIn) {
+        load(mapIn);
+    }
+
+    // Replace the loaded breeds. Also used by tools that run without the game.
+    public static void load(Map<ResourceLocation, JsonElement> mapIn) {
         breeds = new HashMap<>();
         for(ResourceLocation key : mapIn.keySet()) {
             // Forge uses names starting with _ for metadata
@@ -56,7 +61,7 @@ public class BreedManager extends JsonReloadListener {
         event.addListener(instance);
     }
 
-    private static Breed<Gene> deserializeBreed(JsonObject json) 
+    public static Breed<Gene> deserializeBreed(JsonObject json) 
         throws ClassCastException, IllegalStateException
     {
         Breed<Gene> breed = new Breed<>(Gene.class);
@@ -74,6 +79,12 @@ public class BreedManager extends JsonReloadListener {
         return breed;
     }
 
+    // False on a client connected to a server, since data packs are only
+    // loaded by the server
+    public static boolean isLoaded() {
+        return breeds != null;
+    }
+
     public static Breed<Gene> getBreed(ResourceLocation name) {
         return breeds.get(name);
     }
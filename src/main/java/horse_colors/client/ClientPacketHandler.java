@@ -0,0 +1,79 @@
+package sekelsta.horse_colors.client;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import net.minecraft.client.Minecraft;
+import net.minecraft.entity.Entity;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+import sekelsta.horse_colors.client.renderer.VisualPlan;
+import sekelsta.horse_colors.entity.AbstractHorseGenetic;
+import sekelsta.horse_colors.network.CRequestPlanPacket;
+import sekelsta.horse_colors.network.HorseColorsPacketHandler;
+import sekelsta.horse_colors.network.SGenesPacket;
+import sekelsta.horse_colors.network.SHorsePlanPacket;
+
+// The client side of packets from the server, kept apart so the server
+// never loads client classes
+@OnlyIn(Dist.CLIENT)
+public class ClientPacketHandler {
+    // Texture plans the server has sent, by the number it gave them
+    private static final Map<Integer, TextureLayerGroup> PLANS = new HashMap<>();
+    // Plan numbers already asked for, so each is only asked for once
+    private static final Set<Integer> REQUESTED = new HashSet<>();
+
+    public static void handleGenes(SGenesPacket packet) {
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.level == null) {
+            return;
+        }
+        Entity entity = minecraft.level.getEntity(packet.entityId);
+        if (entity instanceof AbstractHorseGenetic) {
+            ((AbstractHorseGenetic)entity).receiveFullGenes(packet.genes);
+        }
+    }
+
+    public static void handleHorsePlan(SHorsePlanPacket packet) {
+        if (packet.layers == null) {
+            return;
+        }
+        PLANS.put(packet.planId, packet.layers);
+        Minecraft minecraft = Minecraft.getInstance();
+        if (minecraft.level == null) {
+            return;
+        }
+        for (Entity entity : minecraft.level.entitiesForRendering()) {
+            if (entity instanceof AbstractHorseGenetic
+                    && ((AbstractHorseGenetic)entity).getTexturePlan() == packet.planId) {
+                updateHorsePlan((AbstractHorseGenetic)entity);
+            }
+        }
+    }
+
+    // Called when a horse's plan number or genes change. Horses with no plan
+    // number work out their own texture, and the others wait for the layers
+    // if they have not arrived yet.
+    public static void updateHorsePlan(AbstractHorseGenetic horse) {
+        int id = horse.getTexturePlan();
+        if (id < 0) {
+            horse.getGenome().setServerPlan(false, null);
+            return;
+        }
+        TextureLayerGroup layers = PLANS.get(id);
+        if (layers == null && REQUESTED.add(id)) {
+            HorseColorsPacketHandler.CHANNEL.sendToServer(new CRequestPlanPacket(id));
+        }
+        horse.getGenome().setServerPlan(true, layers == null ? null : VisualPlan.of(layers));
+    }
+
+    // Plan numbers only mean something to the server that gave them out
+    public static void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        PLANS.clear();
+        REQUESTED.clear();
+    }
+}
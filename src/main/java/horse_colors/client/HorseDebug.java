@@ -18,7 +18,10 @@ import net.minecraftforge.fml.common.Mod;
 import net.minecraft.util.math.RayTraceResult;
 import net.minecraft.util.math.EntityRayTraceResult;
 
+import sekelsta.horse_colors.client.renderer.CompositeScheduler;
+import sekelsta.horse_colors.client.renderer.HorseAtlas;
 import sekelsta.horse_colors.client.renderer.TextureLayer;
+import sekelsta.horse_colors.client.renderer.VisualPlan;
 import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.entity.AbstractHorseGenetic;
 import sekelsta.horse_colors.entity.genetics.Genome;
@@ -95,16 +98,36 @@ public class HorseDebug {
             if (showBasicDebug(player) && entity instanceof AbstractHorseGenetic) {
                 event.getLeft().add("Display age: " + ((AbstractHorseGenetic)entity).getDisplayAge());
                 event.getLeft().add("Pregnant since: " + ((AbstractHorseGenetic)entity).getPregnancyStart());
+                event.getLeft().add("Size updates: " + AbstractHorseGenetic.getDimensionRefreshes(true)
+                    + " of " + AbstractHorseGenetic.getDimensionRequests(true) + " requested");
             }
             if (showBasicDebug(player)) {
-                event.getLeft().add(entity.getGenome().getTexture());
-                event.getLeft().add("Layers:");
-                for (String s : entity.getGenome().getTexturePaths().getDebugStrings()) {
-                    event.getLeft().add(s);
+                String texture = entity.getGenome().getTexture();
+                event.getLeft().add(texture == null ? "Waiting for texture plan" : texture);
+                event.getLeft().add("Shared appearances: " + VisualPlan.size());
+                if (HorseAtlas.isEnabled()) {
+                    event.getLeft().add("Atlas textures: " + HorseAtlas.placedCount());
+                }
+                event.getLeft().addAll(CompositeScheduler.getDebugStrings());
+                if (texture != null) {
+                    event.getLeft().add("Layers:");
+                    for (String s : entity.getGenome().getTexturePaths().getDebugStrings()) {
+                        event.getLeft().add(s);
+                    }
                 }
             }
             if (showGeneDebug(player)) {
-                List<String> strings = debugGenes(entity.getGenome());
+                Genome genome = entity.getGenome();
+                // Clients only have the genes that affect appearance until
+                // they ask for the rest
+                if (entity instanceof AbstractHorseGenetic) {
+                    genome = ((AbstractHorseGenetic)entity).getFullGenome();
+                    if (genome == null) {
+                        event.getLeft().add("Waiting for genes from server");
+                        return;
+                    }
+                }
+                List<String> strings = debugGenes(genome);
                 for (int i = 0; i < strings.size() / 2; ++i) {
                     event.getRight().add(strings.get(i));
                 }
@@ -0,0 +1,219 @@
+package sekelsta.horse_colors.client;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.IReloadableResourceManager;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.Util;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.resource.IResourceType;
+import net.minecraftforge.resource.ISelectiveResourceReloadListener;
+import net.minecraftforge.resource.VanillaResourceType;
+
+import sekelsta.horse_colors.HorseColors;
+import sekelsta.horse_colors.breed.Breed;
+import sekelsta.horse_colors.breed.BreedManager;
+import sekelsta.horse_colors.breed.donkey.DefaultDonkey;
+import sekelsta.horse_colors.breed.donkey.MammothDonkey;
+import sekelsta.horse_colors.breed.donkey.MiniatureDonkey;
+import sekelsta.horse_colors.breed.horse.*;
+import sekelsta.horse_colors.client.renderer.HorseAtlas;
+import sekelsta.horse_colors.client.renderer.HorseTextureCache;
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+import sekelsta.horse_colors.client.renderer.VisualPlan;
+import sekelsta.horse_colors.config.HorseConfig;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+import sekelsta.horse_colors.entity.genetics.EquineGenome.Gene;
+import sekelsta.horse_colors.entity.genetics.FakeGeneticEntity;
+import sekelsta.horse_colors.entity.genetics.HorseColorCalculator;
+import sekelsta.horse_colors.entity.genetics.Species;
+
+// After resources are loaded, samples random horses of each configured breed
+// and builds the textures for the coats that come up most often, so the
+// first herds the player meets are drawn from the cache. The sampling runs in
+// the background on copies of the breeds, and only works out texture layers,
+// so nothing shared with the render thread or the server is touched there.
+@OnlyIn(Dist.CLIENT)
+public class TexturePrebaker implements ISelectiveResourceReloadListener {
+    // Random horses to generate per breed
+    private static final int SAMPLES = 512;
+    // Coats seen fewer times than this are too rare to be worth building
+    private static final int MIN_COUNT = 2;
+
+    // Breeds are only initialized when first used, since they read data
+    // files that might not be loaded yet
+    private static final Map<String, Supplier<Breed>> BREEDS = ImmutableMap.<String, Supplier<Breed>>builder()
+        .put("default_horse", () -> DefaultHorse.breed)
+        .put("appaloosa", () -> Appaloosa.breed)
+        .put("cleveland_bay", () -> ClevelandBay.breed)
+        .put("friesian", () -> Friesian.breed)
+        .put("hucul", () -> Hucul.breed)
+        .put("mongolian_horse", () -> MongolianHorse.breed)
+        .put("quarter_horse", () -> QuarterHorse.breed)
+        .put("takhi", () -> Takhi.breed)
+        .put("tarpan", () -> Tarpan.breed)
+        .put("default_donkey", () -> DefaultDonkey.breed)
+        .put("miniature_donkey", () -> MiniatureDonkey.breed)
+        .put("mammoth_donkey", () -> MammothDonkey.breed)
+        .build();
+
+    private static boolean requested = true;
+    private static CompletableFuture<List<TextureLayerGroup>> sampling;
+    private static final Deque<VisualPlan> QUEUE = new ArrayDeque<>();
+    private static boolean baking;
+    private static long bytesUsed;
+
+    public static void register() {
+        IResourceManager manager = Minecraft.getInstance().getResourceManager();
+        if (manager instanceof IReloadableResourceManager) {
+            ((IReloadableResourceManager)manager).registerReloadListener(new TexturePrebaker());
+        }
+    }
+
+    @Override
+    public void onResourceManagerReload(IResourceManager manager, Predicate<IResourceType> predicate) {
+        if (predicate.test(VanillaResourceType.TEXTURES)) {
+            // Start over, since the layers may have changed
+            QUEUE.clear();
+            HorseTextureCache.clearPrebaked();
+            HorseAtlas.clear();
+            bytesUsed = 0;
+            requested = true;
+        }
+    }
+
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        if (requested && Minecraft.getInstance().level != null) {
+            requested = false;
+            if (HorseConfig.RENDERING.prebakeTextures.get()) {
+                start();
+            }
+        }
+        if (sampling != null && sampling.isDone()) {
+            List<TextureLayerGroup> layers = sampling.getNow(null);
+            sampling = null;
+            if (layers != null) {
+                for (TextureLayerGroup group : layers) {
+                    QUEUE.add(VisualPlan.of(group));
+                }
+            }
+        }
+        bakeNext();
+    }
+
+    private static void start() {
+        // Breeds come from data packs, which a client connected to a server
+        // does not have. Loading them here would replace the ones an
+        // integrated server uses, so in that case nothing is built ahead of
+        // time.
+        if (!BreedManager.isLoaded()) {
+            return;
+        }
+        Map<String, Breed<Gene>> breeds = Maps.newLinkedHashMap();
+        for (String name : HorseConfig.RENDERING.prebakeBreeds.get()) {
+            Supplier<Breed> breed = BREEDS.get(name);
+            if (breed == null) {
+                HorseColors.logger.warn("Unknown breed in prebakeBreeds: " + name);
+                continue;
+            }
+            breeds.put(name, snapshot(breed.get()));
+        }
+        int maxAge = HorseConfig.GROWTH.getMaxAge();
+        sampling = CompletableFuture.supplyAsync(() -> sampleLayers(breeds, maxAge), Util.backgroundExecutor())
+            .exceptionally((e) -> {
+                HorseColors.logger.warn("Could not choose horse textures to build ahead of time", e);
+                return null;
+            });
+    }
+
+    // Submit one texture at a time so these never hold up textures for
+    // horses that are actually on screen
+    private static void bakeNext() {
+        if (baking || QUEUE.isEmpty()) {
+            return;
+        }
+        if (bytesUsed >= HorseConfig.RENDERING.prebakeMemory.get() * 1024L * 1024L) {
+            QUEUE.clear();
+            return;
+        }
+        baking = true;
+        HorseTextureCache.prebake(QUEUE.poll(), (bytes) -> {
+            bytesUsed += bytes;
+            baking = false;
+        });
+    }
+
+    // Most common coats first, taking turns between breeds so each breed gets
+    // its share of the memory
+    private static List<TextureLayerGroup> sampleLayers(Map<String, Breed<Gene>> breeds, int maxAge) {
+        Random rand = new Random();
+        List<List<TextureLayerGroup>> byBreed = Lists.newArrayList();
+        for (Map.Entry<String, Breed<Gene>> entry : breeds.entrySet()) {
+            Species species = entry.getKey().endsWith("donkey") ? Species.DONKEY : Species.HORSE;
+            byBreed.add(sampleBreed(entry.getValue(), species, maxAge, rand));
+        }
+        List<TextureLayerGroup> order = Lists.newArrayList();
+        for (int i = 0; !byBreed.isEmpty(); ++i) {
+            final int index = i;
+            byBreed.removeIf((layers) -> layers.size() <= index);
+            for (List<TextureLayerGroup> layers : byBreed) {
+                order.add(layers.get(index));
+            }
+        }
+        return order;
+    }
+
+    private static List<TextureLayerGroup> sampleBreed(Breed<Gene> breed, Species species, int maxAge, Random rand) {
+        Map<String, Integer> counts = Maps.newHashMap();
+        Map<String, TextureLayerGroup> layersByName = Maps.newHashMap();
+        for (int i = 0; i < SAMPLES; ++i) {
+            FakeGeneticEntity entity = new FakeGeneticEntity();
+            entity.setRand(new Random(rand.nextLong()));
+            entity.setDefaultBreed(breed);
+            EquineGenome genome = new EquineGenome(species, entity);
+            genome.randomize(breed);
+            entity.setDisplayAge(rand.nextInt(maxAge));
+            TextureLayerGroup layers = HorseColorCalculator.getTexturePaths(genome);
+            String name = layers.getUniqueName();
+            layersByName.putIfAbsent(name, layers);
+            counts.merge(name, 1, Integer::sum);
+        }
+        List<TextureLayerGroup> layers = Lists.newArrayList();
+        counts.entrySet().stream()
+            .filter((entry) -> entry.getValue() >= MIN_COUNT)
+            .sorted((a, b) -> b.getValue() - a.getValue())
+            .forEach((entry) -> layers.add(layersByName.get(entry.getKey())));
+        return layers;
+    }
+
+    // A copy of the breed with every gene filled in from its parents. Breeds
+    // fill genes in from their parents the first time they are asked, so
+    // the originals cannot be read from another thread.
+    private static Breed<Gene> snapshot(Breed<Gene> breed) {
+        Breed<Gene> copy = new Breed<>(Gene.class);
+        copy.name = breed.name;
+        copy.population = breed.population;
+        for (Gene gene : Gene.values()) {
+            if (breed.contains(gene)) {
+                copy.genes.put(gene, ImmutableList.copyOf(breed.get(gene)));
+            }
+        }
+        return copy;
+    }
+}
@@ -0,0 +1,76 @@
+package sekelsta.horse_colors.client;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.WeakHashMap;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.client.event.ClientPlayerNetworkEvent;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.entity.EntityLeaveWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
+
+import sekelsta.horse_colors.client.renderer.HorseTextureCache;
+import sekelsta.horse_colors.config.HorseConfig;
+import sekelsta.horse_colors.entity.AbstractHorseGenetic;
+
+// Builds horse textures in the background as horses come into range, so
+// they are ready before the horse is first drawn. Horses join the client
+// world before their genes arrive, so they wait here until they have genes.
+@OnlyIn(Dist.CLIENT)
+public class TextureWarmup {
+    private static final Set<AbstractHorseGenetic> WAITING = Collections.newSetFromMap(new WeakHashMap<>());
+
+    public static void onEntityJoin(EntityJoinWorldEvent event) {
+        if (event.getWorld().isClientSide && event.getEntity() instanceof AbstractHorseGenetic) {
+            WAITING.add((AbstractHorseGenetic)event.getEntity());
+        }
+    }
+
+    public static void onEntityLeave(EntityLeaveWorldEvent event) {
+        if (event.getWorld().isClientSide && event.getEntity() instanceof AbstractHorseGenetic) {
+            AbstractHorseGenetic horse = (AbstractHorseGenetic)event.getEntity();
+            WAITING.remove(horse);
+            HorseTextureCache.forget(horse);
+        }
+    }
+
+    // Horses are not each sent away when the whole world unloads, so let go
+    // of all their textures
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        if (event.getWorld().isClientSide()) {
+            WAITING.clear();
+            HorseTextureCache.forgetAll();
+        }
+    }
+
+    public static void onLoggedOut(ClientPlayerNetworkEvent.LoggedOutEvent event) {
+        WAITING.clear();
+        HorseTextureCache.forgetAll();
+    }
+
+    public static void onClientTick(TickEvent.ClientTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || WAITING.isEmpty()) {
+            return;
+        }
+        if (!HorseConfig.RENDERING.warmUpTextures.get()) {
+            WAITING.clear();
+            return;
+        }
+        // The scheduler decides which horses go first
+        for (Iterator<AbstractHorseGenetic> it = WAITING.iterator(); it.hasNext();) {
+            AbstractHorseGenetic horse = it.next();
+            if (!horse.isAlive()) {
+                it.remove();
+            }
+            // Distant horses wait until they come close enough to need
+            // their full texture
+            else if (!horse.getGeneData().isEmpty() && !HorseTextureCache.isBeyondLod(horse, 1f)) {
+                it.remove();
+                HorseTextureCache.warmUp(horse);
+            }
+        }
+    }
+}
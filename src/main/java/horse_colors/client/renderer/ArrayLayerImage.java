@@ -0,0 +1,46 @@
+package sekelsta.horse_colors.client.renderer;
+
+// A LayerImage backed by a plain int array, for use without a Minecraft client
+public class ArrayLayerImage implements LayerImage {
+    private final int width;
+    private final int height;
+    public final int[] pixels;
+
+    public ArrayLayerImage(int width, int height) {
+        this(width, height, new int[width * height]);
+    }
+
+    public ArrayLayerImage(int width, int height, int[] pixels) {
+        if (pixels.length != width * height) {
+            throw new IllegalArgumentException("Expected " + width * height 
+                + " pixels, got " + pixels.length);
+        }
+        this.width = width;
+        this.height = height;
+        this.pixels = pixels;
+    }
+
+    public ArrayLayerImage(ArrayLayerImage copy) {
+        this(copy.width, copy.height, copy.pixels.clone());
+    }
+
+    @Override
+    public int getWidth() {
+        return width;
+    }
+
+    @Override
+    public int getHeight() {
+        return height;
+    }
+
+    @Override
+    public int getPixelRGBA(int x, int y) {
+        return pixels[y * width + x];
+    }
+
+    @Override
+    public void setPixelRGBA(int x, int y, int color) {
+        pixels[y * width + x] = color;
+    }
+}
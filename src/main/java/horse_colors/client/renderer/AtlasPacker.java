@@ -0,0 +1,214 @@
+package sekelsta.horse_colors.client.renderer;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Places rectangles onto square pages using shelves: each page is split into
+// rows, and each row holds rectangles side by side. When every page is full,
+// the rectangles used longest ago are removed to make room. This only does
+// the bookkeeping, so it works without a game or graphics card.
+public class AtlasPacker<K> {
+    private final int pageSize;
+    private final int maxPages;
+    // Empty pixels left around each rectangle so neighbours do not bleed
+    private final int padding;
+    private final List<Page> pages = new ArrayList<>();
+    // In order of last use, oldest first
+    private final LinkedHashMap<K, Slot> slots = new LinkedHashMap<>(16, 0.75f, true);
+
+    public AtlasPacker(int pageSize, int maxPages, int padding) {
+        this.pageSize = pageSize;
+        this.maxPages = maxPages;
+        this.padding = padding;
+    }
+
+    public static class Slot {
+        public final int page;
+        public final int x;
+        public final int y;
+        public final int width;
+        public final int height;
+        public final float u0;
+        public final float v0;
+        public final float u1;
+        public final float v1;
+        private final Shelf shelf;
+
+        private Slot(int page, int x, int y, int width, int height, int pageSize, Shelf shelf) {
+            this.page = page;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.height = height;
+            this.u0 = x / (float)pageSize;
+            this.v0 = y / (float)pageSize;
+            this.u1 = (x + width) / (float)pageSize;
+            this.v1 = (y + height) / (float)pageSize;
+            this.shelf = shelf;
+        }
+
+        public boolean overlaps(Slot other) {
+            return page == other.page
+                && x < other.x + other.width && other.x < x + width
+                && y < other.y + other.height && other.y < y + height;
+        }
+
+        @Override
+        public String toString() {
+            return "page " + page + " at " + x + "," + y + " size " + width + "x" + height;
+        }
+    }
+
+    private static class Page {
+        final List<Shelf> shelves = new ArrayList<>();
+        // Height used by shelves so far
+        int used;
+    }
+
+    private static class Shelf {
+        final int y;
+        final int height;
+        // Free horizontal spans as pairs of start and length, sorted by start
+        final List<int[]> free = new ArrayList<>();
+
+        Shelf(int y, int height, int width) {
+            this.y = y;
+            this.height = height;
+            this.free.add(new int[] {0, width});
+        }
+
+        // Returns the x position, or -1 if there is no room
+        int allocate(int width) {
+            for (int i = 0; i < free.size(); ++i) {
+                int[] span = free.get(i);
+                if (span[1] >= width) {
+                    int x = span[0];
+                    span[0] += width;
+                    span[1] -= width;
+                    if (span[1] == 0) {
+                        free.remove(i);
+                    }
+                    return x;
+                }
+            }
+            return -1;
+        }
+
+        void release(int x, int width) {
+            int i = 0;
+            while (i < free.size() && free.get(i)[0] < x) {
+                ++i;
+            }
+            free.add(i, new int[] {x, width});
+            // Merge with the following span, then the preceding one
+            if (i + 1 < free.size() && x + width == free.get(i + 1)[0]) {
+                free.get(i)[1] += free.remove(i + 1)[1];
+            }
+            if (i > 0 && free.get(i - 1)[0] + free.get(i - 1)[1] == x) {
+                free.get(i - 1)[1] += free.remove(i)[1];
+            }
+        }
+    }
+
+    public int getPageSize() {
+        return pageSize;
+    }
+
+    public int pageCount() {
+        return pages.size();
+    }
+
+    public int size() {
+        return slots.size();
+    }
+
+    // Look up a rectangle, counting it as used
+    public Slot get(K key) {
+        return slots.get(key);
+    }
+
+    public boolean contains(K key) {
+        return slots.containsKey(key);
+    }
+
+    public Iterable<Slot> allSlots() {
+        return slots.values();
+    }
+
+    // Find room for a rectangle, removing the least recently used ones if
+    // needed. Their keys are added to evicted. Returns null if the rectangle
+    // can never fit.
+    public Slot insert(K key, int width, int height, List<K> evicted) {
+        remove(key);
+        int paddedWidth = width + padding;
+        int paddedHeight = height + padding;
+        if (paddedWidth > pageSize || paddedHeight > pageSize) {
+            return null;
+        }
+        while (true) {
+            Slot slot = allocate(paddedWidth, paddedHeight, width, height);
+            if (slot != null) {
+                slots.put(key, slot);
+                return slot;
+            }
+            if (pages.size() < maxPages) {
+                pages.add(new Page());
+                continue;
+            }
+            Iterator<Map.Entry<K, Slot>> oldest = slots.entrySet().iterator();
+            if (!oldest.hasNext()) {
+                return null;
+            }
+            Map.Entry<K, Slot> entry = oldest.next();
+            oldest.remove();
+            free(entry.getValue());
+            evicted.add(entry.getKey());
+        }
+    }
+
+    public void remove(K key) {
+        Slot slot = slots.remove(key);
+        if (slot != null) {
+            free(slot);
+        }
+    }
+
+    private void free(Slot slot) {
+        slot.shelf.release(slot.x, slot.width + padding);
+    }
+
+    private Slot allocate(int paddedWidth, int paddedHeight, int width, int height) {
+        for (int p = 0; p < pages.size(); ++p) {
+            Page page = pages.get(p);
+            // Use the shortest shelf that is tall enough, to waste less space
+            Shelf best = null;
+            int bestX = -1;
+            for (Shelf shelf : page.shelves) {
+                if (shelf.height < paddedHeight || (best != null && shelf.height >= best.height)) {
+                    continue;
+                }
+                int x = shelf.allocate(paddedWidth);
+                if (x >= 0) {
+                    if (best != null) {
+                        best.release(bestX, paddedWidth);
+                    }
+                    best = shelf;
+                    bestX = x;
+                }
+            }
+            if (best == null && page.used + paddedHeight <= pageSize) {
+                best = new Shelf(page.used, paddedHeight, pageSize);
+                page.shelves.add(best);
+                page.used += paddedHeight;
+                bestX = best.allocate(paddedWidth);
+            }
+            if (best != null) {
+                return new Slot(p, bestX, best.y, width, height, pageSize, best);
+            }
+        }
+        return null;
+    }
+}
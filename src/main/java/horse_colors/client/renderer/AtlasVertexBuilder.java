@@ -0,0 +1,75 @@
+package sekelsta.horse_colors.client.renderer;
+
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+// Moves texture coordinates into a horse's place on an atlas page, so a
+// model made for a whole texture draws from part of one
+@OnlyIn(Dist.CLIENT)
+public class AtlasVertexBuilder implements IVertexBuilder {
+    private final IVertexBuilder parent;
+    private final AtlasPacker.Slot slot;
+
+    public AtlasVertexBuilder(IVertexBuilder parent, AtlasPacker.Slot slot) {
+        this.parent = parent;
+        this.slot = slot;
+    }
+
+    private float u(float u) {
+        return slot.u0 + u * (slot.u1 - slot.u0);
+    }
+
+    private float v(float v) {
+        return slot.v0 + v * (slot.v1 - slot.v0);
+    }
+
+    @Override
+    public IVertexBuilder vertex(double x, double y, double z) {
+        parent.vertex(x, y, z);
+        return this;
+    }
+
+    @Override
+    public IVertexBuilder color(int red, int green, int blue, int alpha) {
+        parent.color(red, green, blue, alpha);
+        return this;
+    }
+
+    @Override
+    public IVertexBuilder uv(float u, float v) {
+        parent.uv(u(u), v(v));
+        return this;
+    }
+
+    @Override
+    public IVertexBuilder overlayCoords(int u, int v) {
+        parent.overlayCoords(u, v);
+        return this;
+    }
+
+    @Override
+    public IVertexBuilder uv2(int u, int v) {
+        parent.uv2(u, v);
+        return this;
+    }
+
+    @Override
+    public IVertexBuilder normal(float x, float y, float z) {
+        parent.normal(x, y, z);
+        return this;
+    }
+
+    @Override
+    public void endVertex() {
+        parent.endVertex();
+    }
+
+    // Models send whole vertices through this, which buffers may implement
+    // faster than the separate calls
+    @Override
+    public void vertex(float x, float y, float z, float red, float green, float blue, float alpha,
+            float u, float v, int overlay, int light, float normalX, float normalY, float normalZ) {
+        parent.vertex(x, y, z, red, green, blue, alpha, u(u), v(v), overlay, light, normalX, normalY, normalZ);
+    }
+}
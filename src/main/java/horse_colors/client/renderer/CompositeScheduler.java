@@ -0,0 +1,260 @@
+package sekelsta.horse_colors.client.renderer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.ActiveRenderInfo;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.entity.Entity;
+import net.minecraft.util.Util;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+import net.minecraftforge.event.TickEvent;
+
+import sekelsta.horse_colors.config.HorseConfig;
+
+// Runs texture composites in the background, nearest and largest on screen
+// first, and limits how much time per frame is spent uploading the results
+// so that many horses appearing at once do not stall a frame.
+@OnlyIn(Dist.CLIENT)
+public class CompositeScheduler {
+    // Jobs without a horse waiting on them, such as textures built ahead of
+    // time, go after everything else
+    private static final double NO_OWNER_PRIORITY = Double.MAX_VALUE;
+
+    private static final Map<String, Job> JOBS = Maps.newHashMap();
+    private static final List<Job> WAITING = Lists.newArrayList();
+    private static final List<Job> RUNNING = Lists.newArrayList();
+
+    // Time spent on the render thread this frame
+    private static long spentNanos;
+
+    // Metrics for the debug screen
+    private static long completed;
+    private static long cancelled;
+    private static double averageLatencyMs;
+    private static double maxLatencyMs;
+
+    private static class Job {
+        final String key;
+        final Supplier<NativeImage> compose;
+        final Consumer<NativeImage> finish;
+        final Set<Entity> owners = Collections.newSetFromMap(new WeakHashMap<>());
+        boolean hasOwner;
+        boolean needed;
+        final long requested = System.nanoTime();
+        CompletableFuture<NativeImage> future;
+        double priority;
+
+        Job(String key, Supplier<NativeImage> compose, Consumer<NativeImage> finish) {
+            this.key = key;
+            this.compose = compose;
+            this.finish = finish;
+        }
+
+        void addOwner(Entity owner) {
+            if (owner == null) {
+                // Something wants this no matter which horses are around
+                this.needed = true;
+            }
+            else {
+                this.owners.add(owner);
+                this.hasOwner = true;
+            }
+        }
+
+        boolean isWanted() {
+            if (needed || !hasOwner) {
+                return true;
+            }
+            for (Entity owner : owners) {
+                if (owner.isAlive()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+    }
+
+    // Queue a composite. The image is passed to finish on the render thread,
+    // or null if compositing failed. If a job with the same key is already
+    // queued, this only adds the owner. Returns false in that case.
+    public static boolean submit(String key, Entity owner, Supplier<NativeImage> compose, Consumer<NativeImage> finish) {
+        Job job = JOBS.get(key);
+        if (job != null) {
+            job.addOwner(owner);
+            return false;
+        }
+        job = new Job(key, compose, finish);
+        job.addOwner(owner);
+        JOBS.put(key, job);
+        WAITING.add(job);
+        return true;
+    }
+
+    public static boolean isPending(String key) {
+        return JOBS.containsKey(key);
+    }
+
+    // Let a waiting job know another horse needs it, to move it up the queue
+    public static void addOwner(String key, Entity owner) {
+        Job job = JOBS.get(key);
+        if (job != null) {
+            job.addOwner(owner);
+        }
+    }
+
+    // Drop jobs nothing needs any more now that this entity has gone
+    public static void cancel(Entity owner) {
+        for (Iterator<Job> it = WAITING.iterator(); it.hasNext();) {
+            Job job = it.next();
+            job.owners.remove(owner);
+            if (!job.isWanted()) {
+                it.remove();
+                JOBS.remove(job.key);
+                cancelled++;
+            }
+        }
+        // Running jobs are checked when they finish
+        for (Job job : RUNNING) {
+            job.owners.remove(owner);
+        }
+    }
+
+    // Whether there is time left this frame for more work on the render thread
+    public static boolean hasBudget() {
+        return spentNanos < budgetNanos();
+    }
+
+    // Count time spent on the render thread outside the scheduler
+    public static void spend(long nanos) {
+        spentNanos += nanos;
+    }
+
+    private static long budgetNanos() {
+        return (long)(HorseConfig.RENDERING.compositeBudget.get() * 1000000);
+    }
+
+    public static void onRenderTick(TickEvent.RenderTickEvent event) {
+        if (event.phase != TickEvent.Phase.START) {
+            return;
+        }
+        spentNanos = 0;
+        if (JOBS.isEmpty()) {
+            return;
+        }
+        updatePriorities();
+        finishReady();
+        startWaiting();
+    }
+
+    private static void updatePriorities() {
+        ActiveRenderInfo camera = Minecraft.getInstance().gameRenderer.getMainCamera();
+        Vector3d eye = camera.getPosition();
+        Vector3d look = new Vector3d(camera.getLookVector());
+        for (Job job : JOBS.values()) {
+            job.priority = NO_OWNER_PRIORITY;
+            for (Entity owner : job.owners) {
+                if (owner.isAlive()) {
+                    job.priority = Math.min(job.priority, priority(owner, eye, look));
+                }
+            }
+        }
+        Comparator<Job> order = Comparator.comparingDouble(job -> job.priority);
+        WAITING.sort(order);
+        RUNNING.sort(order);
+    }
+
+    // Lower numbers go first: distance divided by size, which is about how
+    // small the horse looks, counting horses behind the camera as further away
+    private static double priority(Entity entity, Vector3d eye, Vector3d look) {
+        Vector3d offset = entity.position().subtract(eye);
+        double distance = offset.length() / Math.max(0.1, entity.getBbWidth());
+        if (offset.dot(look) < 0) {
+            distance *= 4;
+        }
+        return distance;
+    }
+
+    private static void finishReady() {
+        long start = System.nanoTime();
+        boolean first = true;
+        for (Iterator<Job> it = RUNNING.iterator(); it.hasNext();) {
+            Job job = it.next();
+            if (!job.future.isDone()) {
+                continue;
+            }
+            NativeImage image = job.future.getNow(null);
+            if (!job.isWanted()) {
+                it.remove();
+                JOBS.remove(job.key);
+                if (image != null) {
+                    image.close();
+                }
+                cancelled++;
+                continue;
+            }
+            // Always finish at least one, so a slow upload cannot stop the queue
+            if (!first && spentNanos + System.nanoTime() - start >= budgetNanos()) {
+                break;
+            }
+            first = false;
+            it.remove();
+            JOBS.remove(job.key);
+            job.finish.accept(image);
+            double latency = (System.nanoTime() - job.requested) / 1e6;
+            averageLatencyMs = completed == 0 ? latency : 0.9 * averageLatencyMs + 0.1 * latency;
+            maxLatencyMs = Math.max(maxLatencyMs, latency);
+            completed++;
+        }
+        spentNanos += System.nanoTime() - start;
+    }
+
+    private static void startWaiting() {
+        int limit = HorseConfig.RENDERING.warmUpLimit.get();
+        for (Iterator<Job> it = WAITING.iterator(); it.hasNext() && RUNNING.size() < limit;) {
+            Job job = it.next();
+            it.remove();
+            if (!job.isWanted()) {
+                JOBS.remove(job.key);
+                cancelled++;
+                continue;
+            }
+            job.future = CompletableFuture.supplyAsync(() -> {
+                try {
+                    return job.compose.get();
+                }
+                catch (Exception e) {
+                    return null;
+                }
+            }, Util.backgroundExecutor());
+            RUNNING.add(job);
+        }
+    }
+
+    public static int queueDepth() {
+        return JOBS.size();
+    }
+
+    public static int runningCount() {
+        return RUNNING.size();
+    }
+
+    public static List<String> getDebugStrings() {
+        return Lists.newArrayList(
+            "Composites queued: " + WAITING.size() + ", running: " + RUNNING.size(),
+            String.format("Composites done: %d, cancelled: %d", completed, cancelled),
+            String.format("Composite latency: %.0f ms average, %.0f ms max", averageLatencyMs, maxLatencyMs));
+    }
+}
@@ -11,6 +11,8 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 @OnlyIn(Dist.CLIENT)
 public class CustomLayeredTexture extends Texture {
     public final TextureLayerGroup layerGroup;
+    // Composited ahead of time off the render thread, used by the next load
+    private NativeImage precomposed;
 
     public CustomLayeredTexture(TextureLayerGroup layers) {
         this.layerGroup = layers;
@@ -19,22 +21,32 @@ public class CustomLayeredTexture extends Texture {
         }
     }
 
+    public void setPrecomposed(NativeImage image) {
+        this.precomposed = image;
+    }
+
     @Override
     public void load(IResourceManager manager) throws IOException {
-        NativeImage image = layerGroup.getLayer(manager);
+        NativeImage image = this.precomposed;
+        this.precomposed = null;
+        if (image == null) {
+            image = NativeLayerImage.compose(layerGroup, manager);
+        }
+        final NativeImage composite = image;
 
         if (!RenderSystem.isOnRenderThreadOrInit()) {
             RenderSystem.recordRenderCall(() -> {
-                this.loadImage(image);
+                this.loadImage(composite);
             });
         } else {
-            this.loadImage(image);
+            this.loadImage(composite);
         }
    }
 
    private void loadImage(NativeImage imageIn) {
       TextureUtil.prepareImage(this.getId(), imageIn.getWidth(), imageIn.getHeight());
       imageIn.upload(0, 0, 0, true);
+      imageIn.close();
    }
 
 
@@ -7,15 +7,11 @@ import sekelsta.horse_colors.util.HorseArmorer;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
 import com.mojang.blaze3d.vertex.VertexBuilderUtils;
-import net.minecraft.block.CarpetBlock;
 import net.minecraft.client.renderer.IRenderTypeBuffer;
 import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.entity.IEntityRenderer;
 import net.minecraft.client.renderer.texture.OverlayTexture;
 import net.minecraft.entity.passive.horse.*;
-import net.minecraft.item.BlockItem;
-import net.minecraft.item.DyeableHorseArmorItem;
-import net.minecraft.item.HorseArmorItem;
 import net.minecraft.item.Item;
 import net.minecraft.item.ItemStack;
 import net.minecraft.util.ResourceLocation;
@@ -42,32 +38,12 @@ public class HorseArmorLayer extends LayerRenderer<AbstractHorseGenetic, HorseGe
         Item armor = itemstack.getItem();
         ResourceLocation textureLocation = HorseArmorer.getTexture(armor);
         if (textureLocation != null) {
-            this.getParentModel().copyPropertiesTo(this.horseModel);
-            this.horseModel.prepareMobModel(horse, p_225628_5_, p_225628_6_, p_225628_7_);
-            this.horseModel.setupAnim(horse, p_225628_5_, p_225628_6_, p_225628_8_, p_225628_9_, p_225628_10_);
-            float r;
-            float g;
-            float b;
-            int color = 0xffffff;
-            if (armor instanceof DyeableHorseArmorItem) {
-                color = ((DyeableHorseArmorItem)armor).getColor(itemstack);
-            } 
-            else if (armor instanceof BlockItem) {
-                BlockItem blockItem = (BlockItem)armor;
-                if (blockItem.getBlock() instanceof CarpetBlock) {
-                    color = ((CarpetBlock)(blockItem.getBlock())).getColor().getColorValue();
-                }
-            }
-            if (color != 0xffffff) {
-                r = (float)(color >> 16 & 255) / 255.0F;
-                g = (float)(color >> 8 & 255) / 255.0F;
-                b = (float)(color & 255) / 255.0F;
-            }
-            else {
-               r = 1.0F;
-               g = 1.0F;
-               b = 1.0F;
-            }
+            // The parent model has already been posed for this horse
+            this.getParentModel().copyPoseTo(this.horseModel);
+            int color = HorseArmorer.getColor(itemstack);
+            float r = (float)(color >> 16 & 255) / 255.0F;
+            float g = (float)(color >> 8 & 255) / 255.0F;
+            float b = (float)(color & 255) / 255.0F;
 
             IVertexBuilder ivertexbuilder;
             if (itemstack.hasFoil()) {
@@ -0,0 +1,165 @@
+package sekelsta.horse_colors.client.renderer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import com.mojang.blaze3d.platform.TextureUtil;
+import java.util.List;
+import java.util.Set;
+import java.util.function.IntConsumer;
+import net.minecraft.client.Minecraft;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.client.renderer.texture.Texture;
+import net.minecraft.entity.Entity;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+import sekelsta.horse_colors.HorseColors;
+import sekelsta.horse_colors.config.HorseConfig;
+
+// Packs composited horse textures onto a few shared pages, so horses on the
+// same page can be drawn together instead of each binding its own texture.
+@OnlyIn(Dist.CLIENT)
+public class HorseAtlas {
+    private static AtlasPacker<String> packer;
+    private static int packerPages;
+    private static final List<ResourceLocation> PAGES = Lists.newArrayList();
+    // Textures that could not be placed, which are drawn on their own instead
+    private static final Set<String> REJECTED = Sets.newHashSet();
+
+    private static class AtlasPage extends Texture {
+        private final int size;
+
+        AtlasPage(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public void load(IResourceManager manager) {
+            // Each horse's area is filled in when it is placed
+            TextureUtil.prepareImage(this.getId(), size, size);
+        }
+    }
+
+    public static boolean isEnabled() {
+        return HorseConfig.RENDERING.useTextureAtlas.get();
+    }
+
+    // Returns where the plan's texture is, or null if it is not on a page
+    // yet, in which case it will be composited in the background
+    public static AtlasPacker.Slot getSlot(VisualPlan plan, Entity owner) {
+        updatePacker();
+        AtlasPacker.Slot slot = packer.get(plan.name);
+        if (slot == null && !CompositeScheduler.isPending(key(plan.name)) && !REJECTED.contains(plan.name)) {
+            compose(plan, owner, (bytes) -> {});
+        }
+        else if (slot == null) {
+            CompositeScheduler.addOwner(key(plan.name), owner);
+        }
+        return slot;
+    }
+
+    // Start compositing the plan's texture if it is not placed yet. Returns
+    // false if there was nothing to do.
+    public static boolean warmUp(VisualPlan plan, Entity owner) {
+        updatePacker();
+        if (packer.contains(plan.name) || CompositeScheduler.isPending(key(plan.name)) || REJECTED.contains(plan.name)) {
+            return false;
+        }
+        compose(plan, owner, (bytes) -> {});
+        return true;
+    }
+
+    // Place a texture ahead of time for a coat that is likely to be seen.
+    // Calls done with the space it took on the atlas in bytes, or 0 if
+    // nothing was placed.
+    public static void prebake(VisualPlan plan, IntConsumer done) {
+        updatePacker();
+        if (packer.contains(plan.name) || CompositeScheduler.isPending(key(plan.name)) || REJECTED.contains(plan.name)) {
+            done.accept(0);
+            return;
+        }
+        compose(plan, null, done);
+    }
+
+    // Atlas textures are scheduled separately from textures of their own
+    private static String key(String name) {
+        return "atlas:" + name;
+    }
+
+    // Like getSlot, but only for a texture that is already placed
+    public static AtlasPacker.Slot peek(String name) {
+        return packer == null ? null : packer.get(name);
+    }
+
+    public static ResourceLocation getPage(AtlasPacker.Slot slot) {
+        return PAGES.get(slot.page);
+    }
+
+    public static int placedCount() {
+        return packer == null ? 0 : packer.size();
+    }
+
+    // Forget every placed texture, for when resources are reloaded. Reloading
+    // blanks the pages, so nothing the packer placed on them is there any more.
+    public static void clear() {
+        for (ResourceLocation page : PAGES) {
+            Minecraft.getInstance().getTextureManager().release(page);
+        }
+        PAGES.clear();
+        REJECTED.clear();
+        packer = null;
+    }
+
+    // Start over if the page settings changed
+    private static void updatePacker() {
+        int size = HorseConfig.RENDERING.atlasPageSize.get();
+        int maxPages = HorseConfig.RENDERING.atlasPages.get();
+        if (packer != null && packer.getPageSize() == size && packerPages == maxPages) {
+            return;
+        }
+        clear();
+        packer = new AtlasPacker<>(size, maxPages, 1);
+        packerPages = maxPages;
+    }
+
+    private static void compose(VisualPlan plan, Entity owner, IntConsumer done) {
+        String name = plan.name;
+        IResourceManager manager = Minecraft.getInstance().getResourceManager();
+        CompositeScheduler.submit(key(name), owner, () -> NativeLayerImage.compose(plan.layers, manager), (image) -> {
+            if (image == null) {
+                REJECTED.add(name);
+                done.accept(0);
+                return;
+            }
+            try {
+                done.accept(place(name, image) ? image.getWidth() * image.getHeight() * 4 : 0);
+            }
+            finally {
+                image.close();
+            }
+        });
+    }
+
+    // Returns false if there was no room for the texture
+    private static boolean place(String name, NativeImage image) {
+        updatePacker();
+        // Evicted textures need no cleanup, since their area is simply
+        // written over by whatever goes there next
+        AtlasPacker.Slot slot = packer.insert(name, image.getWidth(), image.getHeight(), Lists.newArrayList());
+        if (slot == null) {
+            REJECTED.add(name);
+            return false;
+        }
+        while (PAGES.size() <= slot.page) {
+            ResourceLocation location = new ResourceLocation(HorseColors.MODID, "horse/atlas_" + PAGES.size());
+            Minecraft.getInstance().getTextureManager().register(location,
+                new AtlasPage(packer.getPageSize()));
+            PAGES.add(location);
+        }
+        Minecraft.getInstance().getTextureManager().getTexture(PAGES.get(slot.page)).bind();
+        image.upload(0, slot.x, slot.y, false);
+        return true;
+    }
+}
@@ -4,15 +4,20 @@ import net.minecraft.entity.passive.horse.*;
 import com.google.common.collect.ImmutableList;
 import com.mojang.blaze3d.matrix.MatrixStack;
 import com.mojang.blaze3d.vertex.IVertexBuilder;
+import net.minecraft.client.Minecraft;
 import net.minecraft.client.renderer.entity.model.AgeableModel;
 import net.minecraft.client.renderer.model.ModelRenderer;
+import net.minecraft.entity.EntityType;
 import net.minecraft.util.math.MathHelper;
+import net.minecraft.util.math.vector.Vector3d;
 import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.api.distmarker.OnlyIn;
 
 import javax.annotation.Nonnull;
-import java.util.function.Consumer;
+import java.util.Map;
+import java.util.WeakHashMap;
 
+import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.entity.AbstractHorseGenetic;
 
 @OnlyIn(Dist.CLIENT)
@@ -62,8 +67,46 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
     private final ModelRenderer[] tackArray;
     private final ModelRenderer[] extraTackArray;
 
+    // Groups drawn with the same scaling, so drawing does not build lists
+    private final ModelRenderer[] legs;
+    private final ModelRenderer[] bodyAndNeck;
+    private final ModelRenderer[] chests;
+    // Every part that moves or hides, in the same order for every model
+    private final ModelRenderer[] poseParts;
+
     private float ageScale = 0.5f;
 
+    // The entity type the ears and tail are currently set up for
+    private EntityType<?> partsType;
+
+    // Poses worked out for each horse, reused for distant horses between
+    // updates and for horses standing still
+    private final Map<AbstractHorseEntity, Pose> poses = new WeakHashMap<>();
+    // Set when prepareMobModel reused a pose, so setupAnim has nothing to do
+    private boolean reusedPose;
+    // What the pose being worked out depends on, saved with it afterwards
+    private long poseStamp;
+    private boolean poseIdle;
+    private float poseHeadRotation;
+    private float posePitch;
+    private int poseFlags;
+
+    private static class Pose {
+        final float[] values;
+        final boolean[] visible;
+        float ageScale;
+        long stamp;
+        boolean idle;
+        float headRotation;
+        float pitch;
+        int flags;
+
+        Pose(int parts) {
+            this.values = new float[parts * 6];
+            this.visible = new boolean[parts];
+        }
+    }
+
     public HorseGeneticModel() {
         this(0.0F);
     }
@@ -254,18 +297,49 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
         this.babyHorn = new ModelRenderer(this, 84, 0);
         this.babyHorn.addBox(-0.5F, -10.0F - babyHornLength, 2.0F, 1, babyHornLength, 1, scaleFactor);
         this.head.addChild(babyHorn);
+
+        this.legs = new ModelRenderer[]{backLeftLeg, backRightLeg, frontLeftLeg, frontRightLeg};
+        this.bodyAndNeck = new ModelRenderer[]{body, neck};
+        this.chests = new ModelRenderer[]{muleLeftChest, muleRightChest};
+        this.poseParts = new ModelRenderer[]{head, horn, babyHorn, upperMouth, lowerMouth,
+            horseLeftEar, horseRightEar, muleLeftEar, muleRightEar, neck, mane, body,
+            tailBase, tailMiddle, tailTip, tailThin, tailTuft,
+            backLeftLeg, backLeftShin, backLeftHoof, backRightLeg, backRightShin, backRightHoof,
+            frontLeftLeg, frontLeftShin, frontLeftHoof, frontRightLeg, frontRightShin, frontRightHoof,
+            muleLeftChest, muleRightChest,
+            horseSaddleBottom, horseSaddleFront, horseSaddleBack,
+            horseLeftSaddleRope, horseLeftSaddleMetal, horseRightSaddleRope, horseRightSaddleMetal,
+            horseLeftFaceMetal, horseRightFaceMetal, horseFaceRopes, horseLeftRein, horseRightRein};
+    }
+
+    // Give another model the same pose as this one, so layers drawn with a
+    // slightly larger model do not need to animate it all over again
+    public void copyPoseTo(HorseGeneticModel<T> other) {
+        this.copyPropertiesTo(other);
+        other.ageScale = this.ageScale;
+        for (int i = 0; i < poseParts.length; ++i) {
+            other.poseParts[i].copyFrom(this.poseParts[i]);
+            other.poseParts[i].visible = this.poseParts[i].visible;
+        }
     }
 
     @Override
     public void setupAnim(T entityIn, float p_225597_2_, float p_225597_3_, float p_225597_4_, float limbSwingAmount, float partialTickTime) {
+        if (this.reusedPose) {
+            return;
+        }
         if (entityIn instanceof AbstractHorseGenetic) {
             AbstractHorseGenetic horse = (AbstractHorseGenetic)entityIn;
-            this.muleLeftEar.visible = horse.longEars();
-            this.muleRightEar.visible = horse.longEars();
-            this.horseLeftEar.visible = !horse.longEars();
-            this.horseRightEar.visible = !horse.longEars();
-            this.tailBase.visible = horse.fluffyTail();
-            this.tailThin.visible = !horse.fluffyTail();
+            // Ears and tail only depend on the species
+            if (horse.getType() != this.partsType) {
+                this.partsType = horse.getType();
+                this.muleLeftEar.visible = horse.longEars();
+                this.muleRightEar.visible = horse.longEars();
+                this.horseLeftEar.visible = !horse.longEars();
+                this.horseRightEar.visible = !horse.longEars();
+                this.tailBase.visible = horse.fluffyTail();
+                this.tailThin.visible = !horse.fluffyTail();
+            }
             this.ageScale = horse.getGangliness();
         }
         else {
@@ -294,8 +368,90 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
 
         // Probably because the body only rotates for rearing
         this.body.y = 11.0F;
+
+        this.savePose(entityIn);
      }
 
+    // Decide whether this horse's last pose is still good enough. Distant
+    // horses keep their pose until their next update, and horses standing
+    // still keep it as long as they keep looking the same way.
+    private boolean canReusePose(T entityIn, float limbSwingAmount, float partialTickTime) {
+        float bodyRotation = this.updateHorseRotation(entityIn.yBodyRotO, entityIn.yBodyRot, partialTickTime);
+        float headRotation = this.updateHorseRotation(entityIn.yHeadRotO, entityIn.yHeadRot, partialTickTime);
+        this.poseHeadRotation = MathHelper.clamp(headRotation - bodyRotation, -20.0F, 20.0F);
+        this.posePitch = entityIn.xRotO + (entityIn.xRot - entityIn.xRotO) * partialTickTime;
+        this.poseIdle = limbSwingAmount < 0.01F && entityIn.tailCounter == 0
+            && entityIn.getEatAnim(partialTickTime) == 0 && entityIn.getStandAnim(partialTickTime) == 0
+            && entityIn.getMouthAnim(partialTickTime) == 0;
+        int flags = entityIn.isSaddled() ? 1 : 0;
+        flags |= entityIn.isControlledByLocalInstance() ? 2 : 0;
+        flags |= entityIn instanceof AbstractChestedHorseEntity && ((AbstractChestedHorseEntity)entityIn).hasChest() ? 4 : 0;
+        flags |= this.young ? 8 : 0;
+        this.poseFlags = flags;
+        this.poseStamp = -1;
+
+        int lodDistance = HorseConfig.RENDERING.poseLodDistance.get();
+        if (lodDistance > 0) {
+            Vector3d eye = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+            if (entityIn.distanceToSqr(eye) > lodDistance * lodDistance) {
+                // Spread the updates out so horses do not all update together
+                this.poseStamp = (entityIn.tickCount + entityIn.getId()) / HorseConfig.RENDERING.poseLodInterval.get();
+            }
+        }
+
+        Pose pose = this.poses.get(entityIn);
+        if (pose == null || pose.flags != this.poseFlags) {
+            return false;
+        }
+        if (this.poseStamp >= 0 && pose.stamp == this.poseStamp) {
+            return true;
+        }
+        return this.poseIdle && pose.idle
+            && pose.headRotation == this.poseHeadRotation && pose.pitch == this.posePitch
+            && (!(entityIn instanceof AbstractHorseGenetic)
+                || pose.ageScale == ((AbstractHorseGenetic)entityIn).getGangliness());
+    }
+
+    private void savePose(T entityIn) {
+        Pose pose = this.poses.get(entityIn);
+        if (pose == null) {
+            pose = new Pose(this.poseParts.length);
+            this.poses.put(entityIn, pose);
+        }
+        for (int i = 0; i < this.poseParts.length; ++i) {
+            ModelRenderer part = this.poseParts[i];
+            pose.values[6 * i] = part.x;
+            pose.values[6 * i + 1] = part.y;
+            pose.values[6 * i + 2] = part.z;
+            pose.values[6 * i + 3] = part.xRot;
+            pose.values[6 * i + 4] = part.yRot;
+            pose.values[6 * i + 5] = part.zRot;
+            pose.visible[i] = part.visible;
+        }
+        pose.ageScale = this.ageScale;
+        pose.stamp = this.poseStamp;
+        pose.idle = this.poseIdle;
+        pose.headRotation = this.poseHeadRotation;
+        pose.pitch = this.posePitch;
+        pose.flags = this.poseFlags;
+    }
+
+    private void loadPose(Pose pose) {
+        for (int i = 0; i < this.poseParts.length; ++i) {
+            ModelRenderer part = this.poseParts[i];
+            part.x = pose.values[6 * i];
+            part.y = pose.values[6 * i + 1];
+            part.z = pose.values[6 * i + 2];
+            part.xRot = pose.values[6 * i + 3];
+            part.yRot = pose.values[6 * i + 4];
+            part.zRot = pose.values[6 * i + 5];
+            part.visible = pose.visible[i];
+        }
+        this.ageScale = pose.ageScale;
+        // Another horse may have changed the ears and tail since
+        this.partsType = null;
+    }
+
     /**
      * Fixes and offsets a rotation in the ModelHorse class.
      *//* Replaced by MathHelper.func_226167_j_() */
@@ -335,8 +491,6 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
      */
     @Override
     public void renderToBuffer(@Nonnull MatrixStack matrixStackIn, @Nonnull IVertexBuilder bufferIn, int packedLightIn, int packedOverlayIn, float red, float green, float blue, float alpha) {
-        Consumer<ModelRenderer> render = model -> model.render(matrixStackIn, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
-
         // ageScale is 0.5f for the smallest foals
         if (this.young) {
             matrixStackIn.pushPose();
@@ -345,8 +499,7 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
             matrixStackIn.translate(0.0F, 0.95F * (1.0F - ageScale), 0.0F);
         }
 
-        ImmutableList.of(this.backLeftLeg, this.backRightLeg, 
-                         this.frontLeftLeg, this.frontRightLeg).forEach(render);
+        renderParts(this.legs, matrixStackIn, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
 
         if (this.young) {
 
@@ -357,7 +510,7 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
             matrixStackIn.scale(ageScale, ageScale, ageScale);
         }
 
-        ImmutableList.of(this.body, this.neck).forEach(render);
+        renderParts(this.bodyAndNeck, matrixStackIn, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
 
         if (this.young) {
             matrixStackIn.popPose();
@@ -371,13 +524,19 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
             matrixStackIn.translate(0.0F, extra * Math.cos(this.head.xRot), extra * Math.sin(this.head.xRot));
         }
 
-        ImmutableList.of(this.head).forEach(render);
+        this.head.render(matrixStackIn, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
 
         if (this.young) {
             matrixStackIn.popPose();
         }
 
-        ImmutableList.of(this.muleLeftChest, this.muleRightChest).forEach(render);
+        renderParts(this.chests, matrixStackIn, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
+    }
+
+    private static void renderParts(ModelRenderer[] parts, MatrixStack matrixStackIn, IVertexBuilder bufferIn, int packedLightIn, int packedOverlayIn, float red, float green, float blue, float alpha) {
+        for (ModelRenderer part : parts) {
+            part.render(matrixStackIn, bufferIn, packedLightIn, packedOverlayIn, red, green, blue, alpha);
+        }
     }
 
     private void setMouthAnimations(float mouthOpenAmount) {
@@ -399,6 +558,11 @@ public class HorseGeneticModel<T extends AbstractHorseEntity> extends AgeableMod
     public void prepareMobModel(T entityIn, float limbSwing, float limbSwingAmount, float partialTickTime)
     {
         super.prepareMobModel(entityIn, limbSwing, limbSwingAmount, partialTickTime);
+        this.reusedPose = this.canReusePose(entityIn, limbSwingAmount, partialTickTime);
+        if (this.reusedPose) {
+            this.loadPose(this.poses.get(entityIn));
+            return;
+        }
         float bodyRotation = this.updateHorseRotation(entityIn.yBodyRotO, entityIn.yBodyRot, partialTickTime);
         float headRotation = this.updateHorseRotation(entityIn.yHeadRotO, entityIn.yHeadRot, partialTickTime);
         float interpolatedPitch = entityIn.xRotO + (entityIn.xRot - entityIn.xRotO) * partialTickTime;
@@ -1,9 +1,9 @@
 package sekelsta.horse_colors.client.renderer;
 
 import com.mojang.blaze3d.matrix.MatrixStack;
-import com.google.common.collect.Maps;
-import java.util.Map;
-import net.minecraft.client.Minecraft;
+import com.mojang.blaze3d.vertex.IVertexBuilder;
+import net.minecraft.client.renderer.IRenderTypeBuffer;
+import net.minecraft.client.renderer.RenderType;
 import net.minecraft.client.renderer.entity.EntityRendererManager;
 import net.minecraft.client.renderer.entity.MobRenderer;
 import net.minecraft.entity.passive.horse.*;
@@ -26,7 +26,49 @@ public class HorseGeneticRenderer extends MobRenderer<AbstractHorseGenetic, Hors
         super.scale(horse, matrixStackIn, partialTickTime);
     }
 
-    private static final Map<String, ResourceLocation> LAYERED_LOCATION_CACHE = Maps.newHashMap();
+    // Set while drawing a horse that is on the texture atlas
+    private AtlasPacker.Slot atlasSlot;
+    private RenderType atlasRenderType;
+    // Set while drawing a horse with a texture of its own, so the cache is
+    // only asked once per frame
+    private ResourceLocation texture;
+
+    @Override
+    public void render(AbstractHorseGenetic entity, float entityYaw, float partialTicks, MatrixStack matrixStack, IRenderTypeBuffer buffer, int packedLight) {
+        this.atlasSlot = HorseTextureCache.getAtlasSlot(entity);
+        this.atlasRenderType = null;
+        if (this.atlasSlot == null) {
+            this.texture = HorseTextureCache.getTextureLocation(entity);
+            try {
+                super.render(entity, entityYaw, partialTicks, matrixStack, buffer, packedLight);
+            }
+            finally {
+                this.texture = null;
+            }
+            return;
+        }
+        try {
+            // Only the body model's buffer is remapped, not armor or anything else
+            IRenderTypeBuffer remapped = (type) -> {
+                IVertexBuilder builder = buffer.getBuffer(type);
+                return type == this.atlasRenderType ? new AtlasVertexBuilder(builder, this.atlasSlot) : builder;
+            };
+            super.render(entity, entityYaw, partialTicks, matrixStack, remapped, packedLight);
+        }
+        finally {
+            this.atlasSlot = null;
+            this.atlasRenderType = null;
+        }
+    }
+
+    @Override
+    protected RenderType getRenderType(AbstractHorseGenetic entity, boolean visible, boolean translucent, boolean outline) {
+        RenderType type = super.getRenderType(entity, visible, translucent, outline);
+        if (this.atlasSlot != null) {
+            this.atlasRenderType = type;
+        }
+        return type;
+    }
 
     public HorseGeneticRenderer(EntityRendererManager renderManager)
     {
@@ -40,21 +82,14 @@ public class HorseGeneticRenderer extends MobRenderer<AbstractHorseGenetic, Hors
     @Override
     public ResourceLocation getTextureLocation(AbstractHorseGenetic entity)
     {
+        if (this.atlasSlot != null) {
+            return HorseAtlas.getPage(this.atlasSlot);
+        }
+        if (this.texture != null) {
+            return this.texture;
+        }
         if (entity instanceof IGeneticEntity) {
-            String s = ((IGeneticEntity)entity).getGenome().getTexture();
-            ResourceLocation resourcelocation = LAYERED_LOCATION_CACHE.get(s);
-
-            if (resourcelocation == null)
-            {
-                resourcelocation = new ResourceLocation(s);
-                Minecraft.getInstance().getTextureManager().register(
-                    resourcelocation, 
-                    new CustomLayeredTexture(((IGeneticEntity)entity).getGenome().getTexturePaths())
-                );
-                LAYERED_LOCATION_CACHE.put(s, resourcelocation);
-            }
-
-            return resourcelocation;
+            return HorseTextureCache.getTextureLocation(entity);
         }
         System.out.println("Trying to render an ineligible entity");
         return null;
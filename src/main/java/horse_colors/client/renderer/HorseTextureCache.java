@@ -0,0 +1,343 @@
+package sekelsta.horse_colors.client.renderer;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.google.common.collect.Sets;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.function.IntConsumer;
+import javax.annotation.Nullable;
+import net.minecraft.client.Minecraft;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraft.util.math.vector.Vector3d;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+import sekelsta.horse_colors.config.HorseConfig;
+import sekelsta.horse_colors.entity.AbstractHorseGenetic;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+
+// Keeps track of the layered textures horses are using. Gray horses change
+// texture as they age, so the texture for their next stage is composited in
+// the background ahead of time, and the old one is released once no horse
+// is using it. Distant horses use a proxy texture built from only the first
+// few layers, which is shared by every horse with the same base coat.
+@OnlyIn(Dist.CLIENT)
+public class HorseTextureCache {
+    // How far ahead of a gray stage change to start building the texture
+    private static final int PREDICT_TICKS = 1200;
+
+    private static final Map<String, ResourceLocation> LAYERED_LOCATION_CACHE = Maps.newHashMap();
+    // The texture each horse is currently displaying
+    private static final Map<AbstractHorseGenetic, String> CURRENT = new WeakHashMap<>();
+    // The gray stage age each horse has already had its next texture predicted for
+    private static final Map<AbstractHorseGenetic, Integer> PREDICTED = new WeakHashMap<>();
+    // Textures built ahead of time for horses that have not shown them yet
+    private static final Map<AbstractHorseGenetic, String> WARMED = new WeakHashMap<>();
+    // How many entries in CURRENT and WARMED hold each texture, so releasing
+    // one does not have to look through every horse
+    private static final Map<String, Integer> REFERENCES = Maps.newHashMap();
+    // Textures built ahead of time for common coats, kept even while no
+    // horse is using them
+    private static final Set<String> PREBAKED = Sets.newHashSet();
+    // The last atlas texture each horse was drawn with
+    private static final Map<AbstractHorseGenetic, String> ATLAS_LAST = new WeakHashMap<>();
+    // Horses far enough away to use a cheaper proxy texture
+    private static final Set<AbstractHorseGenetic> FAR = Collections.newSetFromMap(new WeakHashMap<>());
+    // Fraction of the LOD distance a far horse must come within to get its
+    // full texture back
+    private static final float LOD_RETURN = 0.8f;
+    // Textures that could not be composited in the background. These are
+    // built on the render thread when there is time, instead of being queued
+    // again every frame.
+    private static final Set<String> FAILED = Sets.newHashSet();
+    // Shown while a horse has no texture ready yet
+    private static final ResourceLocation PLACEHOLDER = new ResourceLocation("horse_colors:textures/entity/horse/base.png");
+
+    public static ResourceLocation getTextureLocation(AbstractHorseGenetic horse) {
+        EquineGenome genome = horse.getGenome();
+        VisualPlan plan = selectPlan(horse, genome);
+        String current = CURRENT.get(horse);
+        if (plan == null) {
+            // Waiting for the server's plan
+            ResourceLocation old = current == null ? null : LAYERED_LOCATION_CACHE.get(current);
+            return old == null ? PLACEHOLDER : old;
+        }
+        String name = plan.name;
+        ResourceLocation location = LAYERED_LOCATION_CACHE.get(name);
+        if (location == null) {
+            boolean pending = CompositeScheduler.isPending(name);
+            if ((pending && current != null) || !CompositeScheduler.hasBudget()) {
+                // Keep showing the old texture until the new one is ready. A
+                // horse with nothing to show yet gets the placeholder.
+                if (pending) {
+                    CompositeScheduler.addOwner(name, horse);
+                }
+                else if (!FAILED.contains(name)) {
+                    precompose(name, new CustomLayeredTexture(plan.layers), horse);
+                }
+                ResourceLocation old = current == null ? null : LAYERED_LOCATION_CACHE.get(current);
+                return old == null ? PLACEHOLDER : old;
+            }
+            long start = System.nanoTime();
+            location = new ResourceLocation(name);
+            Minecraft.getInstance().getTextureManager().register(
+                location, new CustomLayeredTexture(plan.layers));
+            LAYERED_LOCATION_CACHE.put(name, location);
+            FAILED.remove(name);
+            CompositeScheduler.spend(System.nanoTime() - start);
+        }
+        if (!name.equals(current)) {
+            CURRENT.put(horse, name);
+            retain(name);
+            if (name.equals(WARMED.get(horse))) {
+                WARMED.remove(horse);
+                release(name);
+            }
+            if (current != null) {
+                release(current);
+            }
+        }
+        predictNextStage(horse, genome);
+        return location;
+    }
+
+    // The full plan, or a shared proxy if the horse is far away. Null while
+    // waiting for the server's plan.
+    @Nullable
+    private static VisualPlan selectPlan(AbstractHorseGenetic horse, EquineGenome genome) {
+        VisualPlan plan = genome.getVisualPlan();
+        if (plan != null && isFar(horse)) {
+            VisualPlan proxy = plan.getProxy(HorseConfig.RENDERING.lodLayers.get());
+            if (proxy != plan) {
+                if (!isBeyondLod(horse, 1f)) {
+                    // Approaching, so get the full texture ready
+                    warmUp(horse);
+                }
+                return proxy;
+            }
+        }
+        return plan;
+    }
+
+    // Where to draw the horse from if it is on the atlas, or null to use
+    // getTextureLocation instead
+    public static AtlasPacker.Slot getAtlasSlot(AbstractHorseGenetic horse) {
+        if (!HorseAtlas.isEnabled()) {
+            return null;
+        }
+        VisualPlan plan = selectPlan(horse, horse.getGenome());
+        AtlasPacker.Slot slot = plan == null ? null : HorseAtlas.getSlot(plan, horse);
+        if (slot == null) {
+            // Keep showing the old texture until the new one is placed
+            String last = ATLAS_LAST.get(horse);
+            return last == null ? null : HorseAtlas.peek(last);
+        }
+        ATLAS_LAST.put(horse, plan.name);
+        // The horse no longer needs a texture of its own
+        String current = CURRENT.remove(horse);
+        if (current != null) {
+            release(current);
+        }
+        return slot;
+    }
+
+    // Whether the horse is further than the given fraction of the LOD
+    // distance from the camera
+    public static boolean isBeyondLod(AbstractHorseGenetic horse, float fraction) {
+        int lodDistance = HorseConfig.RENDERING.lodDistance.get();
+        if (lodDistance <= 0) {
+            return false;
+        }
+        Vector3d eye = Minecraft.getInstance().gameRenderer.getMainCamera().getPosition();
+        double distance = lodDistance * fraction;
+        return horse.position().distanceToSqr(eye) > distance * distance;
+    }
+
+    // Far horses switch to their full texture a bit closer than they switch
+    // away from it, so a horse near the edge does not flicker between them
+    private static boolean isFar(AbstractHorseGenetic horse) {
+        boolean far = FAR.contains(horse);
+        if (far && !isBeyondLod(horse, LOD_RETURN)) {
+            FAR.remove(horse);
+            far = false;
+        }
+        else if (!far && isBeyondLod(horse, 1f)) {
+            FAR.add(horse);
+            far = true;
+        }
+        return far;
+    }
+
+    // Start building a horse's texture in the background if it does not
+    // exist yet. Returns false if there was nothing to do.
+    public static boolean warmUp(AbstractHorseGenetic horse) {
+        EquineGenome genome = horse.getGenome();
+        VisualPlan plan = genome.getVisualPlan();
+        if (plan == null) {
+            // Nothing to build until the server's plan arrives
+            return false;
+        }
+        if (HorseAtlas.isEnabled()) {
+            return HorseAtlas.warmUp(plan, horse);
+        }
+        String name = plan.name;
+        if (isBuiltOrPending(name)) {
+            return false;
+        }
+        retain(name);
+        String warmed = WARMED.put(horse, name);
+        if (warmed != null) {
+            release(warmed);
+        }
+        precompose(name, new CustomLayeredTexture(plan.layers), horse);
+        return true;
+    }
+
+    // Build a texture ahead of time for a coat that is likely to be seen.
+    // Calls done with the size of the texture in bytes, or 0 if nothing was
+    // built.
+    public static void prebake(VisualPlan plan, IntConsumer done) {
+        if (HorseAtlas.isEnabled()) {
+            HorseAtlas.prebake(plan, done);
+            return;
+        }
+        String name = plan.name;
+        if (LAYERED_LOCATION_CACHE.containsKey(name) || CompositeScheduler.isPending(name)) {
+            PREBAKED.add(name);
+            done.accept(0);
+            return;
+        }
+        IResourceManager manager = Minecraft.getInstance().getResourceManager();
+        CustomLayeredTexture texture = new CustomLayeredTexture(plan.layers);
+        CompositeScheduler.submit(name, null, () -> NativeLayerImage.compose(plan.layers, manager), (image) -> {
+            if (image == null || LAYERED_LOCATION_CACHE.containsKey(name)) {
+                if (image != null) {
+                    image.close();
+                }
+                done.accept(0);
+                return;
+            }
+            int bytes = image.getWidth() * image.getHeight() * 4;
+            texture.setPrecomposed(image);
+            ResourceLocation location = new ResourceLocation(name);
+            Minecraft.getInstance().getTextureManager().register(location, texture);
+            LAYERED_LOCATION_CACHE.put(name, location);
+            PREBAKED.add(name);
+            done.accept(bytes);
+        });
+    }
+
+    // Stop keeping textures built ahead of time, releasing the unused ones
+    public static void clearPrebaked() {
+        List<String> names = Lists.newArrayList(PREBAKED);
+        PREBAKED.clear();
+        for (String name : names) {
+            freeIfUnused(name);
+        }
+    }
+
+    // Called when a horse leaves the client world, to free its texture if
+    // no other horse is using it
+    public static void forget(AbstractHorseGenetic horse) {
+        CompositeScheduler.cancel(horse);
+        PREDICTED.remove(horse);
+        FAR.remove(horse);
+        ATLAS_LAST.remove(horse);
+        String current = CURRENT.remove(horse);
+        if (current != null) {
+            release(current);
+        }
+        String warmed = WARMED.remove(horse);
+        if (warmed != null) {
+            release(warmed);
+        }
+    }
+
+    // Called when the client world goes away, such as on a dimension change
+    // or disconnect, when horses leave without each being forgotten
+    public static void forgetAll() {
+        Set<AbstractHorseGenetic> horses = Sets.newHashSet(CURRENT.keySet());
+        horses.addAll(WARMED.keySet());
+        horses.addAll(PREDICTED.keySet());
+        horses.addAll(ATLAS_LAST.keySet());
+        horses.addAll(FAR);
+        for (AbstractHorseGenetic horse : horses) {
+            forget(horse);
+        }
+    }
+
+    private static void predictNextStage(AbstractHorseGenetic horse, EquineGenome genome) {
+        int next = genome.getNextGrayStageAge();
+        if (next == Integer.MAX_VALUE || next - genome.getAge() > PREDICT_TICKS) {
+            return;
+        }
+        Integer predicted = PREDICTED.get(horse);
+        if (predicted != null && predicted == next) {
+            return;
+        }
+        PREDICTED.put(horse, next);
+        EquineGenome future = genome.atAge(next);
+        String name = future.getTexture();
+        if (isBuiltOrPending(name)) {
+            return;
+        }
+        precompose(name, new CustomLayeredTexture(future.getTexturePaths()), horse);
+    }
+
+    // Whether a texture exists, is being built, or is waiting to be built on
+    // the render thread
+    private static boolean isBuiltOrPending(String name) {
+        return LAYERED_LOCATION_CACHE.containsKey(name) || CompositeScheduler.isPending(name)
+            || FAILED.contains(name);
+    }
+
+    private static void precompose(String name, CustomLayeredTexture texture, AbstractHorseGenetic owner) {
+        Minecraft minecraft = Minecraft.getInstance();
+        IResourceManager manager = minecraft.getResourceManager();
+        CompositeScheduler.submit(name, owner, () -> NativeLayerImage.compose(texture.layerGroup, manager), (image) -> {
+            if (image == null) {
+                // Fall back to building it when it is needed
+                FAILED.add(name);
+                return;
+            }
+            if (LAYERED_LOCATION_CACHE.containsKey(name)) {
+                image.close();
+                return;
+            }
+            texture.setPrecomposed(image);
+            ResourceLocation location = new ResourceLocation(name);
+            minecraft.getTextureManager().register(location, texture);
+            LAYERED_LOCATION_CACHE.put(name, location);
+        });
+    }
+
+    private static void retain(String name) {
+        REFERENCES.merge(name, 1, Integer::sum);
+    }
+
+    // Release a texture a horse stopped using, if no other horse uses it
+    private static void release(String name) {
+        Integer count = REFERENCES.get(name);
+        if (count != null && count > 1) {
+            REFERENCES.put(name, count - 1);
+            return;
+        }
+        REFERENCES.remove(name);
+        freeIfUnused(name);
+    }
+
+    private static void freeIfUnused(String name) {
+        if (REFERENCES.containsKey(name) || PREBAKED.contains(name) || CompositeScheduler.isPending(name)) {
+            return;
+        }
+        ResourceLocation location = LAYERED_LOCATION_CACHE.remove(name);
+        if (location != null) {
+            Minecraft.getInstance().getTextureManager().release(location);
+        }
+    }
+}
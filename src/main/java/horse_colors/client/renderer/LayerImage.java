@@ -0,0 +1,35 @@
+package sekelsta.horse_colors.client.renderer;
+
+// A picture that texture layers can be composited onto. Pixels are packed the
+// same way as in NativeImage.getPixelRGBA, with alpha in the highest byte and
+// red in the lowest, so that the compositing code does not need a Minecraft
+// client to run.
+public interface LayerImage {
+    int getWidth();
+    int getHeight();
+    int getPixelRGBA(int x, int y);
+    void setPixelRGBA(int x, int y, int color);
+
+    // Free any memory held by the image
+    default void close() {}
+
+    static int getA(int color) {
+        return color >> 24 & 255;
+    }
+
+    static int getB(int color) {
+        return color >> 16 & 255;
+    }
+
+    static int getG(int color) {
+        return color >> 8 & 255;
+    }
+
+    static int getR(int color) {
+        return color & 255;
+    }
+
+    static int combine(int a, int b, int g, int r) {
+        return (a & 255) << 24 | (b & 255) << 16 | (g & 255) << 8 | (r & 255);
+    }
+}
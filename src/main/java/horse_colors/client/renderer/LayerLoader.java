@@ -0,0 +1,10 @@
+package sekelsta.horse_colors.client.renderer;
+
+import java.io.IOException;
+
+// Supplies the image for a texture layer, given its name
+public interface LayerLoader {
+    // The name is a resource location such as
+    // horse_colors:textures/entity/horse/base.png
+    LayerImage load(String name) throws IOException;
+}
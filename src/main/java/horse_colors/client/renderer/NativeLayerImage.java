@@ -0,0 +1,62 @@
+package sekelsta.horse_colors.client.renderer;
+
+import java.io.IOException;
+import net.minecraft.client.renderer.texture.NativeImage;
+import net.minecraft.resources.IResourceManager;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.api.distmarker.OnlyIn;
+
+// Lets the texture layers composite directly onto a NativeImage
+@OnlyIn(Dist.CLIENT)
+public class NativeLayerImage implements LayerImage {
+    public final NativeImage image;
+
+    public NativeLayerImage(NativeImage image) {
+        this.image = image;
+    }
+
+    @Override
+    public int getWidth() {
+        return image.getWidth();
+    }
+
+    @Override
+    public int getHeight() {
+        return image.getHeight();
+    }
+
+    @Override
+    public int getPixelRGBA(int x, int y) {
+        return image.getPixelRGBA(x, y);
+    }
+
+    @Override
+    public void setPixelRGBA(int x, int y, int color) {
+        image.setPixelRGBA(x, y, color);
+    }
+
+    @Override
+    public void close() {
+        image.close();
+    }
+
+    public static LayerLoader loader(IResourceManager manager) {
+        return (name) -> new NativeLayerImage(
+            net.minecraftforge.client.MinecraftForgeClient.getImageLayer(new ResourceLocation(name), manager));
+    }
+
+    // Composite the layer using images from the resource manager, or return
+    // null if the base layer could not be loaded. Safe to call from several
+    // threads with the same layers.
+    public static NativeImage compose(TextureLayer layer, IResourceManager manager) {
+        if (layer instanceof TextureLayerGroup) {
+            layer = ((TextureLayerGroup)layer).copy();
+        }
+        LayerImage image = layer.getLayer(loader(manager));
+        if (image == null) {
+            return null;
+        }
+        return ((NativeLayerImage)image).image;
+    }
+}
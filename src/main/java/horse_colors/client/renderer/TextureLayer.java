@@ -3,10 +3,6 @@ package sekelsta.horse_colors.client.renderer;
 import java.io.IOException;
 import java.util.Locale;
 
-import net.minecraft.client.renderer.texture.*;
-import net.minecraft.resources.IResource;
-import net.minecraft.resources.IResourceManager;
-import net.minecraft.util.ResourceLocation;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 import sekelsta.horse_colors.util.Color;
@@ -36,14 +32,13 @@ public class TextureLayer {
         ROOT
     }
 
-    public NativeImage getLayer(IResourceManager manager) {
+    public LayerImage getLayer(LayerLoader loader) {
         if (this.name == null) {
             LOGGER.error("Attempting to load unspecified texture (name is null): " + this.toString());
             return null;
         }
-        try (IResource iresource = manager.getResource(new ResourceLocation(this.name))) {
-            NativeImage image = net.minecraftforge.client.MinecraftForgeClient.getImageLayer(new ResourceLocation(this.name), manager);
-            return image;
+        try {
+            return loader.load(this.name);
         } catch (IOException ioexception) {
             LOGGER.error("Couldn't load layered image", (Throwable)ioexception);
         }
@@ -51,7 +46,7 @@ public class TextureLayer {
         return null;
     }
 
-    public void combineLayers(NativeImage base, NativeImage image) {
+    public void combineLayers(LayerImage base, LayerImage image) {
         switch(this.type) {
             case NORMAL:
                 blendLayer(base, image);
@@ -77,7 +72,7 @@ public class TextureLayer {
         }
     }
 
-    public void blendLayer(NativeImage base, NativeImage image) {
+    public void blendLayer(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 blendPixel(base, j, i, this.multiply(image.getPixelRGBA(j, i)));
@@ -85,28 +80,28 @@ public class TextureLayer {
         }
     }
 
-    public void blendLayerKeepAlpha(NativeImage base, NativeImage image) {
+    public void blendLayerKeepAlpha(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int cb = base.getPixelRGBA(j, i);
                 int ci = this.multiply(image.getPixelRGBA(j, i));
-                float a = NativeImage.getA(ci) / 255.0F;
-                float r = NativeImage.getR(ci);
-                float g = NativeImage.getG(ci);
-                float b = NativeImage.getB(ci);
-                float br = NativeImage.getR(cb);
-                float bg = NativeImage.getG(cb);
-                float bb = NativeImage.getB(cb);
-                int fa = NativeImage.getA(cb);
+                float a = LayerImage.getA(ci) / 255.0F;
+                float r = LayerImage.getR(ci);
+                float g = LayerImage.getG(ci);
+                float b = LayerImage.getB(ci);
+                float br = LayerImage.getR(cb);
+                float bg = LayerImage.getG(cb);
+                float bb = LayerImage.getB(cb);
+                int fa = LayerImage.getA(cb);
                 int fr = (int)(r * a + br * (1.0F-a));
                 int fg = (int)(g * a + bg * (1.0F-a));
                 int fb = (int)(b * a + bb * (1.0F-a));
-                base.setPixelRGBA(j, i, NativeImage.combine(fa, fb, fg, fr));
+                base.setPixelRGBA(j, i, LayerImage.combine(fa, fb, fg, fr));
             }
         }
     }
 
-    public void shadeLayer(NativeImage base, NativeImage image) {
+    public void shadeLayer(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int color = base.getPixelRGBA(j, i);
@@ -116,7 +111,7 @@ public class TextureLayer {
         }
     }
 
-    public void highlightLayer(NativeImage base, NativeImage image) {
+    public void highlightLayer(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int color = base.getPixelRGBA(j, i);
@@ -126,7 +121,7 @@ public class TextureLayer {
         }
     }
 
-    public void maskLayer(NativeImage base, NativeImage image) {
+    public void maskLayer(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int color = base.getPixelRGBA(j, i);
@@ -139,7 +134,7 @@ public class TextureLayer {
     }
 
     // Raise RGB values to an exponent >= 1
-    public void powerLayer(NativeImage base, NativeImage image) {
+    public void powerLayer(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int color = base.getPixelRGBA(j, i);
@@ -151,7 +146,7 @@ public class TextureLayer {
     }
 
     // Raise RGB values to an exponent <= 1
-    public void rootLayer(NativeImage base, NativeImage image) {
+    public void rootLayer(LayerImage base, LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int color = base.getPixelRGBA(j, i);
@@ -162,7 +157,7 @@ public class TextureLayer {
         }
     }
 
-    public void colorLayer(NativeImage image) {
+    public void colorLayer(LayerImage image) {
         for(int i = 0; i < image.getHeight(); ++i) {
             for(int j = 0; j < image.getWidth(); ++j) {
                 int color = image.getPixelRGBA(j, i);
@@ -173,93 +168,93 @@ public class TextureLayer {
 
 
     public int multiply(int color) {
-        int a = NativeImage.getA(color);
+        int a = LayerImage.getA(color);
         a = (int)((float)a * this.color.a);
-        int r = NativeImage.getR(color);
+        int r = LayerImage.getR(color);
         r = (int)((float)r * this.color.r);
-        int g = NativeImage.getG(color);
+        int g = LayerImage.getG(color);
         g = (int)((float)g * this.color.g);
-        int b = NativeImage.getB(color);
+        int b = LayerImage.getB(color);
         b = (int)((float)b * this.color.b);
-        return NativeImage.combine(a, b, g, r);
+        return LayerImage.combine(a, b, g, r);
     }
 
     public int shade(int color, int shading) {
-        float cr = NativeImage.getR(color);
-        float cg = NativeImage.getG(color);
-        float cb = NativeImage.getB(color);
-        float sr = NativeImage.getR(shading);
-        float sg = NativeImage.getG(shading);
-        float sb = NativeImage.getB(shading);
-        float a = (float)NativeImage.getA(shading) / 255.0F;
+        float cr = LayerImage.getR(color);
+        float cg = LayerImage.getG(color);
+        float cb = LayerImage.getB(color);
+        float sr = LayerImage.getR(shading);
+        float sg = LayerImage.getG(shading);
+        float sb = LayerImage.getB(shading);
+        float a = (float)LayerImage.getA(shading) / 255.0F;
         float avg = (float)(cr + cg + cb) / 255.0F / 3.0F;
         a *= 0.5f + 0.5f * (1f - avg) * (1f - avg);
         float na = 1.0F - a;
         float r = Math.max(0, Math.min(255.0F, sr * a + cr * na));
         float g = Math.max(0, Math.min(255.0F, sg * a + cg * na));
         float b = Math.max(0, Math.min(255.0F, sb * a + cb * na));
-        int ca = NativeImage.getA(color);
-        return NativeImage.combine(ca, (int)b, (int)g, (int)r);
+        int ca = LayerImage.getA(color);
+        return LayerImage.combine(ca, (int)b, (int)g, (int)r);
     }
     
     public int highlight(int color, int light) {
-        float r0 = NativeImage.getR(color);
-        float g0 = NativeImage.getG(color);
-        float b0 = NativeImage.getB(color);
-        float r1 = NativeImage.getR(light);
-        float g1 = NativeImage.getG(light);
-        float b1 = NativeImage.getB(light);
-        float a = (float)NativeImage.getA(light) / 255.0F;
+        float r0 = LayerImage.getR(color);
+        float g0 = LayerImage.getG(color);
+        float b0 = LayerImage.getB(color);
+        float r1 = LayerImage.getR(light);
+        float g1 = LayerImage.getG(light);
+        float b1 = LayerImage.getB(light);
+        float a = (float)LayerImage.getA(light) / 255.0F;
         float avg = (float)(r0 + g0 + b0) / 255.0F / 3.0F;
         a *= 0.5f + 0.5f * avg * avg;
         float na = 1.0F - a;
         float r = Math.max(0, Math.min(255.0F, r1 * a + r0 * na));
         float g = Math.max(0, Math.min(255.0F, g1 * a + g0 * na));
         float b = Math.max(0, Math.min(255.0F, b1 * a + b0 * na));
-        int ca = NativeImage.getA(color);
-        return NativeImage.combine(ca, (int)b, (int)g, (int)r);
+        int ca = LayerImage.getA(color);
+        return LayerImage.combine(ca, (int)b, (int)g, (int)r);
     }
 
     // For each RGB value, raise color to the 1 / exp
     public int power(int color, int exp) {
-        float r0 = NativeImage.getR(color) / 255f;
-        float g0 = NativeImage.getG(color) / 255f;
-        float b0 = NativeImage.getB(color) / 255f;
+        float r0 = LayerImage.getR(color) / 255f;
+        float g0 = LayerImage.getG(color) / 255f;
+        float b0 = LayerImage.getB(color) / 255f;
         // No dividing by 0
-        float r1 = Math.max(0.002f, NativeImage.getR(exp) / 255f);
-        float g1 = Math.max(0.002f, NativeImage.getG(exp) / 255f);
-        float b1 = Math.max(0.002f, NativeImage.getB(exp) / 255f);
+        float r1 = Math.max(0.002f, LayerImage.getR(exp) / 255f);
+        float g1 = Math.max(0.002f, LayerImage.getG(exp) / 255f);
+        float b1 = Math.max(0.002f, LayerImage.getB(exp) / 255f);
         int r = clamp((int)(255f * Math.pow(r0, 1f / r1)));
         int g = clamp((int)(255f * Math.pow(g0, 1f / g1)));
         int b = clamp((int)(255f * Math.pow(b0, 1f / b1)));
-        int a = NativeImage.getA(exp);
-        return NativeImage.combine(a, b, g, r);
+        int a = LayerImage.getA(exp);
+        return LayerImage.combine(a, b, g, r);
     }
 
     // For each RGB value, raise color to the exp
     public int root(int color, int exp) {
-        float r0 = NativeImage.getR(color) / 255f;
-        float g0 = NativeImage.getG(color) / 255f;
-        float b0 = NativeImage.getB(color) / 255f;
-        float r1 = NativeImage.getR(exp) / 255f;
-        float g1 = NativeImage.getG(exp) / 255f;
-        float b1 = NativeImage.getB(exp) / 255f;
+        float r0 = LayerImage.getR(color) / 255f;
+        float g0 = LayerImage.getG(color) / 255f;
+        float b0 = LayerImage.getB(color) / 255f;
+        float r1 = LayerImage.getR(exp) / 255f;
+        float g1 = LayerImage.getG(exp) / 255f;
+        float b1 = LayerImage.getB(exp) / 255f;
         int r = clamp((int)(255f * Math.pow(r0, r1)));
         int g = clamp((int)(255f * Math.pow(g0, g1)));
         int b = clamp((int)(255f * Math.pow(b0, b1)));
-        int a = NativeImage.getA(exp);
-        return NativeImage.combine(a, b, g, r);
+        int a = LayerImage.getA(exp);
+        return LayerImage.combine(a, b, g, r);
     }
 
     public int mask(int color, int mask) {
-        float a = NativeImage.getA(color) * NativeImage.getA(mask);
+        float a = LayerImage.getA(color) * LayerImage.getA(mask);
         a /= 255.0F;
         float weight = this.color.a;
-        a = a * weight + NativeImage.getA(color) * (1 - weight);
-        int r = NativeImage.getR(color);
-        int g = NativeImage.getG(color);
-        int b = NativeImage.getB(color);
-        return NativeImage.combine((int)a, b, g, r);
+        a = a * weight + LayerImage.getA(color) * (1 - weight);
+        int r = LayerImage.getR(color);
+        int g = LayerImage.getG(color);
+        int b = LayerImage.getB(color);
+        return LayerImage.combine((int)a, b, g, r);
     }
 
     // Restrict to range [0, 255]
@@ -307,16 +302,16 @@ public class TextureLayer {
         return s.toLowerCase(Locale.ENGLISH);
     }
 
-    public void blendPixel(NativeImage image, int x, int y, int color) {
+    public void blendPixel(LayerImage image, int x, int y, int color) {
         int baseColor = image.getPixelRGBA(x, y);
-        float a = (float)image.getA(color) / 255.0F;
-        float blue = (float)image.getB(color);
-        float green = (float)image.getG(color);
-        float red = (float)image.getR(color);
-        float baseAlpha = (float)image.getA(baseColor) / 255.0F;
-        float baseBlue = (float)image.getB(baseColor);
-        float baseGreen = (float)image.getG(baseColor);
-        float baseRed = (float)image.getR(baseColor);
+        float a = (float)LayerImage.getA(color) / 255.0F;
+        float blue = (float)LayerImage.getB(color);
+        float green = (float)LayerImage.getG(color);
+        float red = (float)LayerImage.getR(color);
+        float baseAlpha = (float)LayerImage.getA(baseColor) / 255.0F;
+        float baseBlue = (float)LayerImage.getB(baseColor);
+        float baseGreen = (float)LayerImage.getG(baseColor);
+        float baseRed = (float)LayerImage.getR(baseColor);
         float alph = a * a + baseAlpha * (1 - a);
         int finalAlpha = (int)(alph * 255.0F);
         int finalBlue = (int)(blue * a + baseBlue * (1 - a));
@@ -338,6 +333,6 @@ public class TextureLayer {
             finalRed = 255;
         }
 
-        image.setPixelRGBA(x, y, image.combine(finalAlpha, finalBlue, finalGreen, finalRed));
+        image.setPixelRGBA(x, y, LayerImage.combine(finalAlpha, finalBlue, finalGreen, finalRed));
     }
 }
@@ -5,8 +5,6 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Locale;
 
-import net.minecraft.client.renderer.texture.*;
-import net.minecraft.resources.IResourceManager;
 
 import sekelsta.horse_colors.util.Color;
 
@@ -26,11 +24,27 @@ public class TextureLayerGroup extends TextureLayer {
         layers.add(layer);
     }
 
+    // Groups change their own state while being composited, so a group
+    // shared between horses is composited from a copy. Plain layers are
+    // only read and do not need copying.
+    public TextureLayerGroup copy() {
+        List<TextureLayer> copies = new ArrayList<>(this.layers.size());
+        for (TextureLayer layer : this.layers) {
+            copies.add(layer instanceof TextureLayerGroup ? ((TextureLayerGroup)layer).copy() : layer);
+        }
+        TextureLayerGroup group = new TextureLayerGroup(copies);
+        group.name = this.name;
+        group.description = this.description;
+        group.type = this.type;
+        group.color = this.color;
+        return group;
+    }
+
     @Override
-    public NativeImage getLayer(IResourceManager manager) {
+    public LayerImage getLayer(LayerLoader loader) {
         Iterator<TextureLayer> iterator = this.layers.iterator();
         TextureLayer baselayer = iterator.next();
-        NativeImage baseimage = baselayer.getLayer(manager);
+        LayerImage baseimage = baselayer.getLayer(loader);
         if (baseimage == null) {
             // baselayer.getLayer() will already have logged an error
             return null;
@@ -42,9 +56,10 @@ public class TextureLayerGroup extends TextureLayer {
             if (layer == null) {
                 continue;
             }
-            NativeImage image = layer.getLayer(manager);
+            LayerImage image = layer.getLayer(loader);
             if (image != null) {
                 layer.combineLayers(baseimage, image);
+                image.close();
             }
         }
 
@@ -57,7 +72,7 @@ public class TextureLayerGroup extends TextureLayer {
 
     // Override to use the isColored field
     @Override
-    public void combineLayers(NativeImage base, NativeImage image) {
+    public void combineLayers(LayerImage base, LayerImage image) {
         if (this.isColored) {
             // Temporarily set the color to white to avoid multiplying, but
             // also set it back at the end so that reloading textures does not
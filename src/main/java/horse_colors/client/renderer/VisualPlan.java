@@ -0,0 +1,119 @@
+package sekelsta.horse_colors.client.renderer;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.Interner;
+import com.google.common.collect.Interners;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.concurrent.ExecutionException;
+
+import sekelsta.horse_colors.config.HorseConfig;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+import sekelsta.horse_colors.entity.genetics.HorseColorCalculator;
+import sekelsta.horse_colors.entity.genetics.Species;
+
+// The texture layers for one appearance, shared by every horse that looks
+// the same. Horses are looked up by the genes that affect color, their seed
+// and their gray stage, so horses that only differ in things like size or
+// speed share a plan without building their layers again. Plans that come
+// out with the same texture are also merged, since the random choices often
+// do not matter (for example a horse with no white markings does not use
+// its leg white seed). Plans are dropped once no horse holds one.
+public class VisualPlan {
+    private static final Cache<Key, VisualPlan> BY_KEY = CacheBuilder.newBuilder().weakValues().build();
+    private static final Interner<VisualPlan> BY_NAME = Interners.newWeakInterner();
+
+    public final String name;
+    public final TextureLayerGroup layers;
+    // Low detail version for distant horses, made from the first few layers
+    private VisualPlan proxy;
+    private int proxyLayers;
+
+    private VisualPlan(TextureLayerGroup layers) {
+        this.layers = layers;
+        this.name = "horse/cache_" + layers.getUniqueName();
+    }
+
+    public static VisualPlan of(EquineGenome genome) {
+        Key key = new Key(genome.species, genome.getVisualHash(),
+            genome.getSeed(), HorseColorCalculator.getGrayStages(genome), HorseConfig.getGeneration());
+        try {
+            return BY_KEY.get(key, () -> BY_NAME.intern(
+                new VisualPlan(HorseColorCalculator.getTexturePaths(genome))));
+        }
+        catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    // The shared plan for layers worked out somewhere else, such as by the
+    // server
+    public static VisualPlan of(TextureLayerGroup layers) {
+        return BY_NAME.intern(new VisualPlan(layers));
+    }
+
+    // Returns this plan if it has no more than the given number of layers
+    public synchronized VisualPlan getProxy(int count) {
+        if (proxy == null || proxyLayers != count) {
+            proxyLayers = count;
+            if (layers.layers.size() <= count) {
+                proxy = this;
+            }
+            else {
+                proxy = BY_NAME.intern(new VisualPlan(
+                    new TextureLayerGroup(new ArrayList<>(layers.layers.subList(0, count)))));
+            }
+        }
+        return proxy;
+    }
+
+    // Number of distinct appearances currently in use
+    public static long size() {
+        return BY_KEY.size();
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof VisualPlan && ((VisualPlan)o).name.equals(this.name);
+    }
+
+    @Override
+    public int hashCode() {
+        return name.hashCode();
+    }
+
+    private static class Key {
+        final Species species;
+        final long visualHash;
+        final int seed;
+        final int grayStages;
+        // Settings such as how gray horses age change the layers, so plans
+        // from before the config last changed are not reused
+        final int configGeneration;
+
+        Key(Species species, long visualHash, int seed, int grayStages, int configGeneration) {
+            this.species = species;
+            this.visualHash = visualHash;
+            this.seed = seed;
+            this.grayStages = grayStages;
+            this.configGeneration = configGeneration;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key other = (Key)o;
+            return species == other.species && visualHash == other.visualHash
+                && seed == other.seed && grayStages == other.grayStages
+                && configGeneration == other.configGeneration;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(species, visualHash, seed, grayStages, configGeneration);
+        }
+    }
+}
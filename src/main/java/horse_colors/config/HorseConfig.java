@@ -6,6 +6,7 @@ import net.minecraftforge.common.ForgeConfigSpec.ConfigValue;
 import net.minecraftforge.common.ForgeConfigSpec.EnumValue;
 import net.minecraftforge.common.ForgeConfigSpec.IntValue;
 import net.minecraftforge.common.ForgeConfigSpec.DoubleValue;
+import net.minecraftforge.fml.config.ModConfig;
 
 import java.util.List;
 import java.util.*;
@@ -18,6 +19,7 @@ public class HorseConfig
     public static final Breeding BREEDING = new Breeding(BUILDER);
     public static final Spawn SPAWN = new Spawn(BUILDER);
     public static final Genetics GENETICS = new Genetics(BUILDER);
+    public static final Rendering RENDERING = new Rendering(BUILDER);
 
     public static class Common {
         public static BooleanValue horseDebugInfo;
@@ -27,6 +29,7 @@ public class HorseConfig
         public static BooleanValue enableSizes;
         public static IntValue mountingTweaks;
         public static BooleanValue useGeneticAnimalsIcons;
+        public static BooleanValue serverTexturePlans;
 
         Common(final ForgeConfigSpec.Builder builder) {
             builder.comment("Common config settings")
@@ -72,6 +75,12 @@ public class HorseConfig
                              "used by permission) in place of the default pink and blue icons.")
                     .define("useGeneticAnimalsIcons", false);
 
+            serverTexturePlans = builder
+                    .comment("If enabled, the server works out which texture layers each horse needs and",
+                             "sends them to players, so each player's game does not have to work them out",
+                             "from the genes. Each different look is only sent to a player once.")
+                    .define("serverTexturePlans", false);
+
             builder.pop();
         }
     }
@@ -81,6 +90,8 @@ public class HorseConfig
         public static BooleanValue grayGradually;
         public static BooleanValue growGradually;
         public static DoubleValue growTime;
+        public static IntValue grayTextureStages;
+        public static BooleanValue catchUpUnloaded;
 
         Growth(final ForgeConfigSpec.Builder builder) {
             builder.comment("Config settings related to growth and aging")
@@ -95,6 +106,12 @@ public class HorseConfig
                     "Otherwise, all gray horses will render as if they were about 6-8 years old.")
                     .define("grayGradually", true);
 
+            grayTextureStages = builder
+                    .comment("How many distinct steps gray horses go through as they whiten with age.",
+                    "Fewer steps means fewer textures need to be built as horses age.",
+                    "Setting to 0 uses the full number of steps.")
+                    .defineInRange("grayTextureStages", 0, 0, 50);
+
             growGradually = builder
                     .comment("If enabled, foals will slowly get bigger as they grow into adults.")
                     .define("foalsGrowGradually", false);
@@ -103,6 +120,12 @@ public class HorseConfig
                     .comment("The number of twenty minute Minecraft days that it takes for a foal to become an adult.")
                     .defineInRange("growTime", 1.0, 2/24000., 10000);
 
+            catchUpUnloaded = builder
+                    .comment("If enabled, horses in unloaded chunks catch up on the time that passed when",
+                    "they are loaded again: they age, foals grow, breeding cooldowns run down, and",
+                    "mares that came due give birth. Otherwise they stay as they were while unloaded.")
+                    .define("catchUpUnloaded", false);
+
             builder.pop();
         }
 
@@ -208,6 +231,7 @@ public class HorseConfig
         public static BooleanValue blockVanillaHorseSpawns;
         public static BooleanValue blockVanillaDonkeySpawns;
         public static BooleanValue convertVanillaHorses;
+        public static IntValue conversionsPerTick;
 
         Spawn(final ForgeConfigSpec.Builder builder) {
             builder.comment("Settings to configure spawning")
@@ -236,13 +260,121 @@ public class HorseConfig
                     .comment("If this is set to true, existing horses will be turned into horses with genetics")
                     .define("convertVanillaHorses", false);
 
+            conversionsPerTick = builder
+                    .comment("The most vanilla horses to convert each tick. Horses waiting their turn stay",
+                             "vanilla for a few ticks, which keeps loading a world full of them smooth.")
+                    .defineInRange("conversionsPerTick", 4, 1, 1000);
+
             builder.pop();
         }
 
     }
 
+    public static class Rendering {
+        public static BooleanValue warmUpTextures;
+        public static IntValue warmUpLimit;
+        public static DoubleValue compositeBudget;
+        public static IntValue lodDistance;
+        public static IntValue lodLayers;
+        public static IntValue poseLodDistance;
+        public static IntValue poseLodInterval;
+        public static BooleanValue useTextureAtlas;
+        public static IntValue atlasPageSize;
+        public static IntValue atlasPages;
+        public static BooleanValue prebakeTextures;
+        public static ConfigValue<List<? extends String>> prebakeBreeds;
+        public static IntValue prebakeMemory;
+
+        Rendering(final ForgeConfigSpec.Builder builder) {
+            builder.comment("Client side settings for how horse textures are built")
+                    .push("rendering");
+
+            warmUpTextures = builder
+                    .comment("If enabled, horse textures are built in the background as soon as a horse",
+                             "comes into range, instead of the first time it is drawn.")
+                    .define("warmUpTextures", true);
+
+            warmUpLimit = builder
+                    .comment("The most horse textures to build in the background at once.",
+                             "The nearest horses are built first.")
+                    .defineInRange("warmUpLimit", 4, 1, 64);
+
+            compositeBudget = builder
+                    .comment("Milliseconds per frame to spend uploading and building horse textures on",
+                             "the render thread. Horses whose textures do not fit in a frame are drawn",
+                             "once their texture is ready.")
+                    .defineInRange("compositeBudget", 2.0, 0.0, 1000.0);
+
+            lodDistance = builder
+                    .comment("Horses further than this many blocks away use a simpler texture, shared",
+                             "by all horses with the same base coat. The simpler texture leaves out",
+                             "white markings and other patterns. Setting to 0 disables this.")
+                    .defineInRange("lodDistance", 0, 0, 1024);
+
+            lodLayers = builder
+                    .comment("How many of a horse's texture layers to use for the simpler texture.")
+                    .defineInRange("lodLayers", 3, 1, 64);
+
+            poseLodDistance = builder
+                    .comment("Horses further than this many blocks away only update their pose every few",
+                             "ticks instead of every frame. Setting to 0 disables this.")
+                    .defineInRange("poseLodDistance", 32, 0, 1024);
+
+            poseLodInterval = builder
+                    .comment("How many ticks apart distant horses update their pose.")
+                    .defineInRange("poseLodInterval", 3, 1, 20);
+
+            useTextureAtlas = builder
+                    .comment("If enabled, horse textures are packed onto shared pages so that many horses",
+                             "can be drawn together. This is experimental.")
+                    .define("useTextureAtlas", false);
+
+            atlasPageSize = builder
+                    .comment("The width and height in pixels of each texture atlas page.")
+                    .defineInRange("atlasPageSize", 2048, 256, 16384);
+
+            atlasPages = builder
+                    .comment("The most texture atlas pages to use. When they are full, the textures used",
+                             "longest ago are replaced.")
+                    .defineInRange("atlasPages", 4, 1, 64);
+
+            prebakeTextures = builder
+                    .comment("If enabled, the most common coats of each breed listed below are built in the",
+                             "background after resources are loaded, so the first herds seen are ready.")
+                    .define("prebakeTextures", false);
+
+            prebakeBreeds = builder
+                    .comment("Breeds to build common coats for. Choices are default_horse, appaloosa,",
+                             "cleveland_bay, friesian, hucul, mongolian_horse, quarter_horse, takhi, tarpan,",
+                             "default_donkey, miniature_donkey, and mammoth_donkey.")
+                    .defineList("prebakeBreeds", Arrays.asList("default_horse", "quarter_horse",
+                            "mongolian_horse", "appaloosa", "friesian", "default_donkey"),
+                            (name) -> name instanceof String);
+
+            prebakeMemory = builder
+                    .comment("Megabytes of textures to build ahead of time at most.")
+                    .defineInRange("prebakeMemory", 64, 1, 1024);
+
+            builder.pop();
+        }
+    }
+
     public static final ForgeConfigSpec spec = BUILDER.build();
 
+    // Goes up each time the config is loaded or changed, so values worked
+    // out from it can tell when they are out of date
+    private static volatile int generation;
+
+    public static int getGeneration() {
+        return generation;
+    }
+
+    public static void onConfigChanged(ModConfig.ModConfigEvent event) {
+        if (event.getConfig().getSpec() == spec) {
+            generation++;
+        }
+    }
+
     public static boolean isGenderEnabled() {
         return BREEDING.enableGenders.get();
     }
@@ -1,13 +1,18 @@
 package sekelsta.horse_colors.entity;
 
 import com.google.common.collect.ImmutableList;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
 import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
 import java.util.UUID;
+import java.util.concurrent.atomic.AtomicInteger;
 import javax.annotation.Nullable;
 
 import net.minecraft.advancements.CriteriaTriggers;
@@ -29,6 +34,7 @@ import net.minecraft.entity.passive.horse.*;
 import net.minecraft.entity.player.PlayerEntity;
 import net.minecraft.entity.player.ServerPlayerEntity;
 import net.minecraft.entity.SpawnReason;
+import net.minecraft.inventory.EquipmentSlotType;
 import net.minecraft.inventory.Inventory;
 import net.minecraft.item.BlockItem;
 import net.minecraft.item.BookItem;
@@ -49,6 +55,7 @@ import net.minecraft.util.ActionResultType;
 import net.minecraft.util.DamageSource;
 import net.minecraft.util.Hand;
 import net.minecraft.util.math.AxisAlignedBB;
+import net.minecraft.util.math.BlockPos;
 import net.minecraft.util.math.MathHelper;
 import net.minecraft.util.math.vector.Vector3d;
 import net.minecraft.util.SoundEvent;
@@ -61,11 +68,15 @@ import net.minecraft.world.GameRules;
 import net.minecraft.world.server.ServerWorld;
 import net.minecraft.world.IServerWorld;
 import net.minecraft.world.World;
+import net.minecraftforge.api.distmarker.Dist;
 import net.minecraftforge.common.MinecraftForge;
+import net.minecraftforge.common.capabilities.CapabilityProvider;
 import net.minecraftforge.event.entity.living.BabyEntitySpawnEvent;
+import net.minecraftforge.fml.DistExecutor;
 import net.minecraftforge.fml.common.ObfuscationReflectionHelper;
 
 import sekelsta.horse_colors.breed.*;
+import sekelsta.horse_colors.client.ClientPacketHandler;
 import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.entity.ai.*;
 import sekelsta.horse_colors.entity.genetics.*;
@@ -73,30 +84,73 @@ import sekelsta.horse_colors.entity.genetics.EquineGenome.Gene;
 import sekelsta.horse_colors.HorseColors;
 import sekelsta.horse_colors.item.ModItems;
 import sekelsta.horse_colors.item.GeneBookItem;
+import sekelsta.horse_colors.network.CRequestGenesPacket;
+import sekelsta.horse_colors.network.HorseColorsPacketHandler;
+import sekelsta.horse_colors.network.TexturePlanSync;
 import sekelsta.horse_colors.util.Util;
+import sekelsta.horse_colors.world.PregnancyScheduler;
 
 public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity implements IGeneticEntity {
     protected EquineGenome genes = new EquineGenome(this.getSpecies(), this);
-    protected static final DataParameter<String> GENES = EntityDataManager.<String>defineId(AbstractHorseGenetic.class, DataSerializers.STRING);
+    // Clients are only sent the genes that change how the horse looks
+    protected static final DataParameter<String> GENES = EntityDataManager.<String>defineId(AbstractHorseGenetic.class, ModDataSerializers.GENES);
+    // All of the genes, on the server
+    private String geneData = "";
+    // On clients, all of the genes as last sent on request, and the synced
+    // genes they went with
+    private EquineGenome fullGenome;
+    private String fullGenomeFor;
+    private String fullGenomeRequestedFor;
+    // The number of the texture plan the server worked out, or -1 for
+    // clients to work out the texture from the genes themselves. This goes
+    // to players along with the rest of the horse's data.
+    protected static final DataParameter<Integer> TEXTURE_PLAN = EntityDataManager.<Integer>defineId(AbstractHorseGenetic.class, DataSerializers.INT);
+    // The gene version and age the server's texture plan is good for
+    private int texturePlanVersion;
+    private int texturePlanNextAge;
 
     protected static final DataParameter<Integer> HORSE_RANDOM = EntityDataManager.<Integer>defineId(AbstractHorseGenetic.class, DataSerializers.INT);
-    protected static final DataParameter<Integer> DISPLAY_AGE = EntityDataManager.<Integer>defineId(AbstractHorseGenetic.class, DataSerializers.INT);
+    // The game time the horse was born, or will be for foals not yet fully
+    // grown, so its age can be worked out from the world clock
+    protected static final DataParameter<Long> BIRTH_TIME = EntityDataManager.<Long>defineId(AbstractHorseGenetic.class, ModDataSerializers.LONG);
     protected static final DataParameter<Boolean> GENDER = EntityDataManager.<Boolean>defineId(AbstractHorseGenetic.class, DataSerializers.BOOLEAN);
     protected static final DataParameter<Integer> PREGNANT_SINCE = EntityDataManager.<Integer>defineId(AbstractHorseGenetic.class, DataSerializers.INT);
     protected static final DataParameter<Float> MOTHER_SIZE = EntityDataManager.<Float>defineId(AbstractHorseGenetic.class, DataSerializers.FLOAT);
-    protected int trueAge;
 
     protected static final UUID CSNB_SPEED_UUID = UUID.fromString("84ca527a-5c70-4336-a737-ae3f6d40ef45");
     protected static final UUID CSNB_JUMP_UUID = UUID.fromString("72323326-888b-4e46-bf52-f669600642f7");
     protected static final AttributeModifier CSNB_SPEED_MODIFIER = new AttributeModifier(CSNB_SPEED_UUID, "CSNB speed penalty", -0.6, AttributeModifier.Operation.MULTIPLY_TOTAL);
     protected static final AttributeModifier CSNB_JUMP_MODIFIER = new AttributeModifier(CSNB_JUMP_UUID, "CSNB jump penalty", -0.6, AttributeModifier.Operation.MULTIPLY_TOTAL);
+    // Ticks between light checks for night blind horses that stay in one place
+    protected static final int LIGHT_CHECK_INTERVAL = 20;
+    private boolean nightBlind;
+    private int nightBlindVersion = -1;
+    private boolean nightBlindPenalty;
+    private BlockPos lightCheckPos;
+    private int nextLightCheck;
 
     protected static final int HORSE_GENETICS_VERSION = 2;
 
     protected List<AbstractHorseGenetic> unbornChildren = new ArrayList<>();
 
-    // field_110282_bM = standAnim0
-    private Field rearingAmountField = ObfuscationReflectionHelper.findField(AbstractHorseEntity.class, "field_110282_bM");
+    // field_110282_bM = standAnim0. positionRider reads it every tick for
+    // every passenger, and a static final handle is close to as fast as
+    // reading the field directly.
+    private static final MethodHandle REARING_AMOUNT;
+    static {
+        try {
+            REARING_AMOUNT = MethodHandles.lookup().unreflectGetter(
+                ObfuscationReflectionHelper.findField(AbstractHorseEntity.class, "field_110282_bM"));
+        }
+        catch (IllegalAccessException e) {
+            throw new RuntimeException(e);
+        }
+    }
+    // field_110170_bx = leashInfoTag, a leash that has not been attached yet
+    private static final Field LEASH_INFO = ObfuscationReflectionHelper.findField(MobEntity.class, "field_110170_bx");
+    // Forge's own method, so the name is not obfuscated. Another entity's
+    // capabilities can only be saved through reflection.
+    private static final Method SERIALIZE_CAPS = ObfuscationReflectionHelper.findMethod(CapabilityProvider.class, "serializeCaps");
 
     public AbstractHorseGenetic(EntityType<? extends AbstractHorseGenetic> entityType, World worldIn)
     {
@@ -104,12 +158,38 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         this.setSeed(this.random.nextInt());
         this.setMale(this.random.nextBoolean());
         this.entityData.set(PREGNANT_SINCE, -1);
+        this.entityData.set(BIRTH_TIME, worldIn.getGameTime());
         // Trying to do this in writeAdditional would be too late, as the
         // persistent data is already written from Entity.write before that is
         // called (at least in Minecraft 1.16.3)
         this.getPersistentData().putInt("HorseGeneticsVersion", HORSE_GENETICS_VERSION);
     }
 
+    // The gene version attributes and size were last updated for
+    private int appliedGeneVersion;
+    // Set when synced values that affect size or attributes change. Horses
+    // often have several set at once, such as when they spawn, so the work
+    // is put off until the next tick and done once.
+    private boolean dimensionsDirty;
+    private boolean attributesDirty;
+    // Working out the adult size runs the whole size model, so keep it until
+    // the genes, gender, mother size or config change. Negative when it needs
+    // working out.
+    private float adultScale = -1;
+    // The config generation the adult size was worked out for
+    private int adultScaleConfig;
+    // How far forward each rider sits at that size: alone, in front when
+    // there are two, and behind
+    private final float[] riderOffsets = new float[3];
+    private float saddleOffset;
+    // For the debug screen, to compare how often size updates are asked for
+    // with how often they are done. The client and an integrated server run
+    // on different threads, so each side keeps its own count.
+    private static final AtomicInteger CLIENT_DIMENSION_REQUESTS = new AtomicInteger();
+    private static final AtomicInteger SERVER_DIMENSION_REQUESTS = new AtomicInteger();
+    private static final AtomicInteger CLIENT_DIMENSION_REFRESHES = new AtomicInteger();
+    private static final AtomicInteger SERVER_DIMENSION_REFRESHES = new AtomicInteger();
+
     public EquineGenome getGenome() {
         return genes;
     }
@@ -159,10 +239,23 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         super.defineSynchedData();
         this.entityData.define(GENES, "");
         this.entityData.define(HORSE_RANDOM, 0);
-        this.entityData.define(DISPLAY_AGE, 0);
+        this.entityData.define(BIRTH_TIME, 0L);
         this.entityData.define(GENDER, false);
         this.entityData.define(PREGNANT_SINCE, -1);
         this.entityData.define(MOTHER_SIZE, 1f);
+        this.entityData.define(TEXTURE_PLAN, -1);
+    }
+
+    // Only the saves that go to chunk storage, and passengers saved with
+    // them, record when they were made. Spawn eggs and commands load data
+    // from saveWithoutId, so they never bring a saved time along.
+    @Override
+    public boolean saveAsPassenger(CompoundNBT compound) {
+        if (!super.saveAsPassenger(compound)) {
+            return false;
+        }
+        compound.putLong("saved_time", this.level.getGameTime());
+        return true;
     }
 
     /**
@@ -175,7 +268,7 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         compound.putString("Genes", this.getGeneData());
 
         compound.putInt("Random", this.getSeed());
-        compound.putInt("true_age", trueAge);
+        compound.putInt("true_age", this.getDisplayAge());
         compound.putBoolean("gender", this.isMale());
         compound.putInt("pregnant_since", this.getPregnancyStart());
         if (this.unbornChildren != null) {
@@ -226,7 +319,7 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         }
 
         this.setSeed(compound.getInt("Random"));
-        this.trueAge = compound.getInt("true_age");
+        int trueAge = compound.getInt("true_age");
         if (compound.contains("gender")) {
             this.setMale(compound.getBoolean("gender"));
         }
@@ -278,8 +371,22 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         setMotherSize(motherSize);
 
         // Ensure the true age matches the age
-        if (this.trueAge < 0 != this.age < 0) {
-            this.trueAge = this.age;
+        if (trueAge < 0 != this.age < 0) {
+            trueAge = this.age;
+        }
+        this.setDisplayAge(trueAge);
+        // Commands that merge data into a horse already in the world, and
+        // structures, which save horses without their UUID, should not age it
+        if (compound.contains("saved_time") && compound.hasUUID("UUID") && !this.isAddedToWorld()
+                && HorseConfig.GROWTH.catchUpUnloaded.get()) {
+            long elapsed = this.level.getGameTime() - compound.getLong("saved_time");
+            // A bad saved time should not age a horse by more than a lifetime
+            this.catchUp(Math.min(elapsed, HorseConfig.GROWTH.getMaxAge()));
+        }
+        // Horses being loaded are scheduled once they are added to the
+        // world, but commands can also change a horse that is already there
+        if (this.isAddedToWorld() && this.isPregnant()) {
+            PregnancyScheduler.schedule(this);
         }
 
         // Set any genes that were specified in a human-readable format
@@ -366,6 +473,93 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
     }
 
     public void copyAbstractHorse(AbstractHorseEntity horse)
+    {
+        if (hasUnattachedLeash(horse)) {
+            // Only the saved data knows where the leash goes
+            copyAbstractHorseData(horse);
+            return;
+        }
+        // Copy what the horse has directly, which is much faster than saving
+        // and loading it. The old horse is taken out of the world before this
+        // one goes in, so they can share a UUID.
+        this.setUUID(horse.getUUID());
+        this.moveTo(horse.getX(), horse.getY(), horse.getZ(), horse.yRot, horse.xRot);
+        this.yBodyRot = horse.yBodyRot;
+        this.yHeadRot = horse.yHeadRot;
+        this.setDeltaMovement(horse.getDeltaMovement());
+        if (horse.hasCustomName()) {
+            this.setCustomName(horse.getCustomName());
+        }
+        this.setCustomNameVisible(horse.isCustomNameVisible());
+        this.setInvulnerable(horse.isInvulnerable());
+        this.setSilent(horse.isSilent());
+        this.setNoGravity(horse.isNoGravity());
+        this.setNoAi(horse.isNoAi());
+        if (horse.isPersistenceRequired()) {
+            this.setPersistenceRequired();
+        }
+        for (String tag : horse.getTags()) {
+            this.addTag(tag);
+        }
+        this.getPersistentData().merge(horse.getPersistentData());
+        this.getPersistentData().putInt("HorseGeneticsVersion", HORSE_GENETICS_VERSION);
+        for (EffectInstance effect : horse.getActiveEffects()) {
+            this.addEffect(new EffectInstance(effect));
+        }
+        copyCapabilities(horse);
+
+        this.randomize(getRandomBreed());
+        // Vanilla horses do not keep their age once grown
+        this.setAge(horse.getAge());
+        if (horse.getAge() >= 0) {
+            this.setDisplayAge(0);
+        }
+        this.setTamed(horse.isTamed());
+        this.setOwnerUUID(horse.getOwnerUUID());
+        this.setTemper(horse.getTemper());
+        this.setBred(horse.isBred());
+        this.setRemainingFireTicks(horse.getRemainingFireTicks());
+        this.setAirSupply(horse.getAirSupply());
+        this.fallDistance = horse.fallDistance;
+        if (horse.isSaddled()) {
+            this.inventory.setItem(0, new ItemStack(Items.SADDLE));
+        }
+        ItemStack armor = horse.getItemBySlot(EquipmentSlotType.CHEST);
+        if (!armor.isEmpty() && this.canWearArmor() && this.isArmor(armor)) {
+            this.inventory.setItem(1, armor.copy());
+        }
+        this.updateContainerEquipment();
+
+        // Keeps modifiers from other mods, and the vanilla stats for when
+        // genetic stats are off
+        this.getAttributes().load(horse.getAttributes().save());
+        this.useGeneticAttributes();
+        this.setHealth(horse.getHealth());
+    }
+
+    private void copyCapabilities(Entity other) {
+        try {
+            CompoundNBT caps = (CompoundNBT)SERIALIZE_CAPS.invoke(other);
+            if (caps != null) {
+                this.deserializeCaps(caps);
+            }
+        }
+        catch (IllegalAccessException | InvocationTargetException e) {
+            HorseColors.logger.error("Could not copy capabilities from " + other, e);
+        }
+    }
+
+    private static boolean hasUnattachedLeash(MobEntity mob) {
+        try {
+            return LEASH_INFO.get(mob) != null;
+        }
+        catch (IllegalAccessException e) {
+            return true;
+        }
+    }
+
+    // The slow way, through the horse's save data
+    private void copyAbstractHorseData(AbstractHorseEntity horse)
     {
         // Copy NBT data (initialize from horse's NBT)
         CompoundNBT vanilla = horse.saveWithoutId(new CompoundNBT());
@@ -377,12 +571,44 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         this.useGeneticAttributes();
     }
 
+    // Apply the time that passed while the horse was unloaded in one step.
+    // Gray stages follow from the age, and an overdue mare gives birth as
+    // soon as she is scheduled.
+    protected void catchUp(long elapsed) {
+        if (this.level.isClientSide || elapsed <= 0) {
+            return;
+        }
+        int ticks = (int)Math.min(elapsed, Integer.MAX_VALUE / 2);
+        int trueAge = this.getDisplayAge();
+        if (this.age < 0) {
+            // Foals grow, possibly all the way up
+            this.setAge(Math.min(0, this.age + ticks));
+        }
+        else if (this.age > 0) {
+            // Breeding cooldown
+            this.setAge(Math.max(0, this.age - ticks));
+        }
+        this.setDisplayAge((int)Math.min((long)trueAge + ticks, Integer.MAX_VALUE));
+    }
+
+    // Age in ticks, negative for foals
+    @Override
     public int getDisplayAge() {
-        return this.entityData.get(DISPLAY_AGE);
+        return (int)(this.level.getGameTime() - this.entityData.get(BIRTH_TIME));
     }
 
     public void setDisplayAge(int age) {
-        this.entityData.set(DISPLAY_AGE, age);
+        this.entityData.set(BIRTH_TIME, this.level.getGameTime() - age);
+    }
+
+    @Override
+    public void setAge(int age) {
+        super.setAge(age);
+        // Foals follow the growing age, which feeding speeds up. Positive
+        // values are the breeding cooldown for adults, not their age.
+        if (!this.level.isClientSide && age < 0) {
+            this.setDisplayAge(age);
+        }
     }
 
     @Override
@@ -394,11 +620,60 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
     }
 
     public void setGeneData(String genes) {
-        this.entityData.set(GENES, genes);
+        if (this.level.isClientSide) {
+            this.entityData.set(GENES, genes);
+            return;
+        }
+        this.geneData = genes;
+        String synced = EquineGenome.syncedGenes(genes);
+        String before = this.entityData.get(GENES);
+        if (synced.equals(before)) {
+            // Nothing clients can see changed, so there is nothing to send
+            this.onSyncedDataUpdated(GENES);
+            return;
+        }
+        // Sent whole with the rest of the horse's data, so it can never arrive
+        // out of order with an earlier value
+        this.entityData.set(GENES, synced);
     }
 
     public String getGeneData() {
-        return (String)this.entityData.get(GENES);
+        if (this.level.isClientSide) {
+            return (String)this.entityData.get(GENES);
+        }
+        return this.geneData;
+    }
+
+    // All of the genes, including the ones clients are not sent. On clients
+    // this asks the server for them and returns null until they arrive.
+    @Nullable
+    public EquineGenome getFullGenome() {
+        if (!this.level.isClientSide) {
+            return this.getGenome();
+        }
+        String synced = this.getGeneData();
+        if (this.fullGenome != null && synced.equals(this.fullGenomeFor)) {
+            return this.fullGenome;
+        }
+        if (!synced.equals(this.fullGenomeRequestedFor)) {
+            this.fullGenomeRequestedFor = synced;
+            HorseColorsPacketHandler.CHANNEL.sendToServer(new CRequestGenesPacket(this.getId()));
+        }
+        return null;
+    }
+
+    // Called on clients with the reply to getFullGenome's request
+    public void receiveFullGenes(String genes) {
+        String synced = this.getGeneData();
+        if (!EquineGenome.syncedGenes(genes).equals(synced)) {
+            // The genes changed since they were asked for, so ask again
+            this.fullGenomeRequestedFor = null;
+            return;
+        }
+        FakeGeneticEntity copy = new FakeGeneticEntity(this, this.getDisplayAge());
+        copy.setGeneData(genes);
+        this.fullGenome = new EquineGenome(this.getSpecies(), copy);
+        this.fullGenomeFor = synced;
     }
 
     public void setMotherSize(float size) {
@@ -411,20 +686,81 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
 
     @Override
     public void onSyncedDataUpdated(DataParameter<?> key) {
+        if (this.level.isClientSide && (GENES.equals(key) || TEXTURE_PLAN.equals(key))) {
+            // A plan the server worked out is only good for the genes it
+            // was worked out from
+            DistExecutor.unsafeRunWhenOn(Dist.CLIENT, () -> () -> ClientPacketHandler.updateHorsePlan(this));
+        }
         if (GENES.equals(key)) {
-            this.getGenome().resetTexture();
-            this.useGeneticAttributes();
-            this.refreshDimensions();
+            // The same genes can be sent again, such as when the horse starts
+            // being tracked, so only update if they changed. The texture
+            // checks the gene version itself.
+            int version = this.getGenome().getGeneVersion();
+            if (version != this.appliedGeneVersion) {
+                this.appliedGeneVersion = version;
+                this.attributesDirty = true;
+                this.adultScale = -1;
+                this.requestRefreshDimensions();
+            }
         }
         else if (HORSE_RANDOM.equals(key)
             || GENDER.equals(key)
             || MOTHER_SIZE.equals(key)) {
-            this.refreshDimensions();
+            if (!HORSE_RANDOM.equals(key)) {
+                this.adultScale = -1;
+            }
+            this.requestRefreshDimensions();
         }
 
         super.onSyncedDataUpdated(key);
     }
 
+    // Same as getGenome().getAdultScale(), but only worked out again when it
+    // might have changed
+    public float getAdultScale() {
+        if (this.adultScale < 0 || this.adultScaleConfig != HorseConfig.getGeneration()) {
+            float scale = this.getGenome().getAdultScale();
+            this.adultScale = scale;
+            this.adultScaleConfig = HorseConfig.getGeneration();
+            this.riderOffsets[0] = -0.1f * scale;
+            this.riderOffsets[1] = 0.1f * scale;
+            this.riderOffsets[2] = -0.5f * scale;
+            this.saddleOffset = 0.04f * scale;
+        }
+        return this.adultScale;
+    }
+
+    private void requestRefreshDimensions() {
+        this.dimensionsDirty = true;
+        (this.level.isClientSide ? CLIENT_DIMENSION_REQUESTS : SERVER_DIMENSION_REQUESTS).incrementAndGet();
+    }
+
+    // Do the updates onSyncedDataUpdated put off
+    private void applySyncedChanges() {
+        if (this.attributesDirty) {
+            this.attributesDirty = false;
+            this.useGeneticAttributes();
+        }
+        if (this.adultScale >= 0 && this.adultScaleConfig != HorseConfig.getGeneration()) {
+            // The config changed, and sizes may have been turned on or off
+            this.adultScale = -1;
+            this.requestRefreshDimensions();
+        }
+        if (this.dimensionsDirty) {
+            this.dimensionsDirty = false;
+            (this.level.isClientSide ? CLIENT_DIMENSION_REFRESHES : SERVER_DIMENSION_REFRESHES).incrementAndGet();
+            this.refreshDimensions();
+        }
+    }
+
+    public static int getDimensionRequests(boolean clientSide) {
+        return (clientSide ? CLIENT_DIMENSION_REQUESTS : SERVER_DIMENSION_REQUESTS).get();
+    }
+
+    public static int getDimensionRefreshes(boolean clientSide) {
+        return (clientSide ? CLIENT_DIMENSION_REFRESHES : SERVER_DIMENSION_REFRESHES).get();
+    }
+
     @Override
     public boolean isMale() {
         return ((Boolean)this.entityData.get(GENDER)).booleanValue();
@@ -486,9 +822,8 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
     }
 
     private double getRiderWeight(Entity rider) {
-        double weight = rider.getBoundingBox().getXsize()
-                            * rider.getBoundingBox().getYsize()
-                            * rider.getBoundingBox().getZsize();
+        AxisAlignedBB box = rider.getBoundingBox();
+        double weight = box.getXsize() * box.getYsize() * box.getZsize();
         if (rider instanceof AnimalEntity) {
             weight *= 2;
         }
@@ -523,8 +858,9 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         double weight = getRiderWeight(passenger);
         // The player's hitbox is 0.6 * 0.6 * 1.8, so this will almost exactly allow
         // them to ride any horse heavier than the miniature cutoff
+        float horseWeight = EquineGenome.weightKgForScale(this.getAdultScale());
         return riderweight + weight < 0.648001 
-            * this.getGenome().getGeneticWeightKg() / EquineGenome.MINIATURE_CUTOFF;
+            * horseWeight / EquineGenome.MINIATURE_CUTOFF;
     }
 
     public Inventory getHorseChest() {
@@ -640,6 +976,11 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
 
     protected void useGeneticAttributes()
     {
+        // Clients get attributes from the server, and do not have the genes
+        // needed to work them out
+        if (this.level.isClientSide) {
+            return;
+        }
         if (HorseConfig.GENETICS.useGeneticStats.get())
         {
             EquineGenome genes = this.getGenome();
@@ -835,7 +1176,7 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
             {
                 return null;
             }
-            foal.setMotherSize(this.getGenome().getAdultScale());
+            foal.setMotherSize(this.getAdultScale());
             foal.setMale(this.random.nextBoolean());
             foal.useGeneticAttributes();
             foal.setAge(HorseConfig.GROWTH.getMinAge());
@@ -862,59 +1203,83 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
             unbornChildren.add((AbstractHorseGenetic)child);
             if (!this.level.isClientSide) {
                 // Can't be a child
-                this.trueAge = Math.max(0, this.trueAge);
-                this.entityData.set(PREGNANT_SINCE, this.trueAge);
+                if (this.getDisplayAge() < 0) {
+                    this.setDisplayAge(0);
+                }
+                this.entityData.set(PREGNANT_SINCE, this.getDisplayAge());
+                PregnancyScheduler.schedule(this);
             }
             return true;
         }
         return false;
     }
 
+    // Ticks until the horse gives birth, which may be negative if overdue
+    public int getPregnancyTicksLeft() {
+        int currentLength = this.getDisplayAge() - this.getPregnancyStart();
+        return HorseConfig.getHorsePregnancyLength() - currentLength;
+    }
+
+    // Called by the pregnancy scheduler when the horse is due
+    public void checkPregnancy() {
+        if (!this.isPregnant()) {
+            return;
+        }
+        if (this.unbornChildren == null
+                || this.unbornChildren.size() == 0) {
+            this.entityData.set(PREGNANT_SINCE, -1);
+            return;
+        }
+        // The pregnancy length setting may have changed since this was scheduled
+        if (this.getPregnancyTicksLeft() > 0) {
+            PregnancyScheduler.schedule(this);
+            return;
+        }
+        for (AbstractHorseGenetic child : unbornChildren) {
+            if (this.level instanceof ServerWorld) {
+                this.spawnChild(child, (ServerWorld)this.level);
+            }
+        }
+        this.unbornChildren = new ArrayList<>();
+        this.entityData.set(PREGNANT_SINCE, -1);
+    }
+
+    @Override
+    public void onAddedToWorld() {
+        super.onAddedToWorld();
+        this.applySyncedChanges();
+        if (!this.level.isClientSide) {
+            // So players that see the horse arrive get its plan straight away
+            this.updateTexturePlan();
+            if (this.unbornChildren != null && this.unbornChildren.size() > 0
+                    && this.getPregnancyStart() < 0) {
+                this.entityData.set(PREGNANT_SINCE, 0);
+            }
+            if (this.isPregnant()) {
+                PregnancyScheduler.schedule(this);
+            }
+        }
+    }
+
+    @Override
+    public void onRemovedFromWorld() {
+        super.onRemovedFromWorld();
+        if (!this.level.isClientSide) {
+            PregnancyScheduler.unschedule(this);
+        }
+    }
+
     /**
      * Called to update the entity's position/logic.
      */
     @Override
     public void tick()
     {
+        this.applySyncedChanges();
         super.tick();
-        // Keep track of age
         if (!this.level.isClientSide) {
-            // For children, align with growing age in case they have been fed
-            if (this.age < 0) {
-                this.trueAge = this.age;
-            }
-            else {
-                this.trueAge = Math.max(0, this.trueAge + 1);
-            }
-            // Allow imprecision
-            final int c = 400;
-            if (this.trueAge / c != this.getDisplayAge() / c
-                    || (this.trueAge < 0 != this.getDisplayAge() < 0)) {
-                this.setDisplayAge(this.trueAge);
-            }
-        }
-
-        // Pregnancy
-        if (!this.level.isClientSide && this.isPregnant()) {
-            // Check pregnancy
-            if (this.unbornChildren == null
-                    || this.unbornChildren.size() == 0) {
-                this.entityData.set(PREGNANT_SINCE, -1);
-            }
-            // Handle birth
-            int totalLength = HorseConfig.getHorsePregnancyLength();
-            int currentLength = this.trueAge - this.getPregnancyStart();
-            if (currentLength >= totalLength) {
-                for (AbstractHorseGenetic child : unbornChildren) {
-                    if (this.level instanceof ServerWorld) {
-                        this.spawnChild(child, (ServerWorld)this.level);
-                    }
-                }
-                this.unbornChildren = new ArrayList<>();
-                this.entityData.set(PREGNANT_SINCE, -1);
-            }
+            this.updateTexturePlan();
         }
-
         // Overo lethal white syndrome
         if (this.getGenome().isLethalWhite()
             && this.tickCount > 80)
@@ -926,37 +1291,89 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         }
     }
 
-    public void aiStep() {
-        if (this.unbornChildren != null && this.unbornChildren.size() > 0
-                && this.getPregnancyStart() < 0) {
-            this.entityData.set(PREGNANT_SINCE, 0);
-        }
-
-        if (this.getGenome().isHomozygous(Gene.leopard, HorseAlleles.LEOPARD) && !this.level.isClientSide()) {
-            ModifiableAttributeInstance speedAttribute = this.getAttribute(Attributes.MOVEMENT_SPEED);
-            ModifiableAttributeInstance jumpAttribute = this.getAttribute(Attributes.JUMP_STRENGTH);
-            float brightness = this.getBrightness();
-            if (brightness > 0.5f) {
-                if (speedAttribute.getModifier(CSNB_SPEED_UUID) != null) {
-                    speedAttribute.removeModifier(CSNB_SPEED_MODIFIER);
-                }
-                if (jumpAttribute.getModifier(CSNB_JUMP_UUID) != null) {
-                    jumpAttribute.removeModifier(CSNB_JUMP_MODIFIER);
-                }
-            }
-            else {
-                if (speedAttribute.getModifier(CSNB_SPEED_UUID) == null) {
-                    speedAttribute.addTransientModifier(CSNB_SPEED_MODIFIER);
-                }
-                if (jumpAttribute.getModifier(CSNB_JUMP_UUID) == null) {
-                    jumpAttribute.addTransientModifier(CSNB_JUMP_MODIFIER);
-                }
+    // The number of the texture plan the server has for this horse, or -1
+    // if it leaves the texture to clients
+    public int getTexturePlan() {
+        return ((Integer)this.entityData.get(TEXTURE_PLAN)).intValue();
+    }
+
+    // Work out the texture layers again if the genes changed or the horse
+    // grayed. Players are sent the new plan number like any other change to
+    // the horse's data.
+    private void updateTexturePlan() {
+        int current = this.getTexturePlan();
+        if (!TexturePlanSync.isEnabled()) {
+            if (current >= 0) {
+                this.entityData.set(TEXTURE_PLAN, -1);
             }
+            return;
+        }
+        EquineGenome genome = this.getGenome();
+        int version = genome.getGeneVersion();
+        if (current >= 0 && version == this.texturePlanVersion
+                && genome.getAge() < this.texturePlanNextAge) {
+            return;
+        }
+        this.texturePlanVersion = version;
+        this.texturePlanNextAge = HorseColorCalculator.getNextGrayStageAge(genome);
+        this.entityData.set(TEXTURE_PLAN, TexturePlanSync.getId(HorseColorCalculator.getTexturePaths(genome)));
+    }
+
+    public void aiStep() {
+        if (!this.level.isClientSide()) {
+            this.updateNightBlindness();
         }
 
         super.aiStep();
     }
 
+    // Whether the horse has congenital stationary night blindness, which
+    // comes with being homozygous for leopard. Only checked when the genes
+    // change.
+    public boolean isNightBlind() {
+        int version = this.getGenome().getGeneVersion();
+        if (version != this.nightBlindVersion) {
+            this.nightBlindVersion = version;
+            this.nightBlind = this.getGenome().isHomozygous(Gene.leopard, HorseAlleles.LEOPARD);
+        }
+        return this.nightBlind;
+    }
+
+    // Slow night blind horses down in the dark. Light is checked when the
+    // horse moves to another block, or every so often in case the light
+    // around it changed, and the attributes only change when it crosses
+    // the threshold.
+    private void updateNightBlindness() {
+        boolean blind = this.isNightBlind();
+        if (blind) {
+            BlockPos pos = this.blockPosition();
+            if (pos.equals(this.lightCheckPos) && this.tickCount < this.nextLightCheck) {
+                return;
+            }
+            this.lightCheckPos = pos;
+            this.nextLightCheck = this.tickCount + LIGHT_CHECK_INTERVAL;
+            blind = this.getBrightness() <= 0.5f;
+        }
+        if (blind == this.nightBlindPenalty) {
+            return;
+        }
+        this.nightBlindPenalty = blind;
+        ModifiableAttributeInstance speedAttribute = this.getAttribute(Attributes.MOVEMENT_SPEED);
+        ModifiableAttributeInstance jumpAttribute = this.getAttribute(Attributes.JUMP_STRENGTH);
+        if (blind) {
+            if (speedAttribute.getModifier(CSNB_SPEED_UUID) == null) {
+                speedAttribute.addTransientModifier(CSNB_SPEED_MODIFIER);
+            }
+            if (jumpAttribute.getModifier(CSNB_JUMP_UUID) == null) {
+                jumpAttribute.addTransientModifier(CSNB_JUMP_MODIFIER);
+            }
+        }
+        else {
+            speedAttribute.removeModifier(CSNB_SPEED_MODIFIER);
+            jumpAttribute.removeModifier(CSNB_JUMP_MODIFIER);
+        }
+    }
+
     // Returns the Y offset from the entity's position for any entity riding this one.
     @Override
     public double getPassengersRidingOffset() {
@@ -987,27 +1404,23 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         // checking that the passenger can steer.
         // Setting yRot happens in AbstractHorseEntity.travel
 
-        float xzOffset = -0.1f;
+        this.getAdultScale();
+        float xzOffset = this.riderOffsets[0];
         if (this.getPassengers().size() > 1) {
             int i = this.getPassengers().indexOf(passenger);
-            if (i == 0) {
-                xzOffset = 0.1f;
-            } else {
-                xzOffset = -0.5f;
-            }
+            xzOffset = this.riderOffsets[i == 0 ? 1 : 2];
         }
-        xzOffset *= this.getGenome().getAdultScale();
 
         double yOffset = this.getPassengersRidingOffset() + passenger.getMyRidingOffset();
         // Compensate for saddle for players
         if (passenger instanceof PlayerEntity && this.isSaddled()) {
-            yOffset += 0.04 * this.getGenome().getAdultScale();
+            yOffset += this.saddleOffset;
         }
-        float standAnim0 = 0;
+        float standAnim0;
         try {
-            standAnim0 = (Float)rearingAmountField.get(this);
+            standAnim0 = (float)REARING_AMOUNT.invokeExact((AbstractHorseEntity)this);
         }
-        catch (IllegalAccessException e) {
+        catch (Throwable e) {
             throw new RuntimeException(e);
         }
         if (standAnim0 > 0.0F) {
@@ -1141,15 +1554,16 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
     private void randomize(Breed breed) {
         this.getGenome().randomize(breed);
         // Choose a random age
-        this.trueAge = this.random.nextInt(HorseConfig.GROWTH.getMaxAge());
+        int trueAge = this.random.nextInt(HorseConfig.GROWTH.getMaxAge());
         // This preserves the ratio of child/adult
         if (this.random.nextInt(5) == 0) {
             // Foals pick a random age within the younger half
-            this.trueAge = this.getBirthAge() + this.random.nextInt(-this.getBirthAge() / 2);
+            trueAge = this.getBirthAge() + this.random.nextInt(-this.getBirthAge() / 2);
         }
         this.setMale(this.random.nextBoolean());
         // Don't set the growing age to a positive value, that would be bad
-        this.setAge(Math.min(0, this.trueAge));
+        this.setAge(Math.min(0, trueAge));
+        this.setDisplayAge(trueAge);
         this.useGeneticAttributes();
         // Assume mother was the same size
         this.setMotherSize(this.getGenome().getGeneticScale());
@@ -1186,7 +1600,7 @@ public abstract class AbstractHorseGenetic extends AbstractChestedHorseEntity im
         // This is different from LivingEntity.getScale which uses
         // 0.5 for children
         float base = isBaby()? 0.6f : 1.0f;
-        return this.getGenome().getAdultScale() * base;
+        return this.getAdultScale() * base;
     }
 
     @Override
@@ -0,0 +1,130 @@
+package sekelsta.horse_colors.entity;
+
+import net.minecraft.network.PacketBuffer;
+import net.minecraft.network.datasync.IDataSerializer;
+import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.event.RegistryEvent;
+import net.minecraftforge.eventbus.api.SubscribeEvent;
+import net.minecraftforge.fml.common.Mod;
+import net.minecraftforge.fml.common.Mod.EventBusSubscriber.Bus;
+import net.minecraftforge.registries.DataSerializerEntry;
+
+import sekelsta.horse_colors.HorseColors;
+
+@Mod.EventBusSubscriber(modid = HorseColors.MODID, bus = Bus.MOD)
+public class ModDataSerializers {
+    // Minecraft has no serializer for longs, which game times need
+    public static final IDataSerializer<Long> LONG = new IDataSerializer<Long>() {
+        @Override
+        public void write(PacketBuffer buffer, Long value) {
+            buffer.writeLong(value);
+        }
+
+        @Override
+        public Long read(PacketBuffer buffer) {
+            return buffer.readLong();
+        }
+
+        @Override
+        public Long copy(Long value) {
+            return value;
+        }
+    };
+
+    // Gene strings hold one small number per character, mostly below 15,
+    // so send them half a byte per allele instead of as text
+    public static final IDataSerializer<String> GENES = new IDataSerializer<String>() {
+        @Override
+        public void write(PacketBuffer buffer, String value) {
+            writeGenes(buffer, value);
+        }
+
+        @Override
+        public String read(PacketBuffer buffer) {
+            return readGenes(buffer);
+        }
+
+        @Override
+        public String copy(String value) {
+            return value;
+        }
+    };
+
+    // Values 0 to 14 take one nibble. 15 means the value follows in the next
+    // two nibbles. Strings with characters that do not fit in a byte are
+    // sent as text instead.
+    public static void writeGenes(PacketBuffer buffer, String genes) {
+        boolean packable = true;
+        for (int i = 0; i < genes.length(); ++i) {
+            if (genes.charAt(i) > 255) {
+                packable = false;
+                break;
+            }
+        }
+        buffer.writeVarInt(genes.length() * 2 + (packable ? 0 : 1));
+        if (!packable) {
+            buffer.writeUtf(genes);
+            return;
+        }
+        int held = -1;
+        for (int i = 0; i < genes.length(); ++i) {
+            int value = genes.charAt(i);
+            int count = value < 15 ? 1 : 3;
+            int nibbles = value < 15 ? value : (15 << 8) | value;
+            for (int n = count - 1; n >= 0; --n) {
+                int nibble = (nibbles >> (4 * n)) & 15;
+                if (held < 0) {
+                    held = nibble;
+                }
+                else {
+                    buffer.writeByte(held << 4 | nibble);
+                    held = -1;
+                }
+            }
+        }
+        if (held >= 0) {
+            buffer.writeByte(held << 4);
+        }
+    }
+
+    public static String readGenes(PacketBuffer buffer) {
+        int header = buffer.readVarInt();
+        if ((header & 1) != 0) {
+            return buffer.readUtf();
+        }
+        char[] genes = new char[header / 2];
+        int current = 0;
+        boolean low = false;
+        for (int i = 0; i < genes.length; ++i) {
+            int value = 0;
+            int count = 1;
+            for (int n = 0; n < count; ++n) {
+                int nibble;
+                if (low) {
+                    nibble = current & 15;
+                }
+                else {
+                    current = buffer.readUnsignedByte();
+                    nibble = current >> 4;
+                }
+                low = !low;
+                if (n == 0 && nibble == 15) {
+                    count = 3;
+                }
+                else {
+                    value = value << 4 | nibble;
+                }
+            }
+            genes[i] = (char)value;
+        }
+        return new String(genes);
+    }
+
+    @SubscribeEvent
+    public static void registerSerializers(final RegistryEvent.Register<DataSerializerEntry> event) {
+        event.getRegistry().register(new DataSerializerEntry(LONG)
+            .setRegistryName(new ResourceLocation(HorseColors.MODID, "long")));
+        event.getRegistry().register(new DataSerializerEntry(GENES)
+            .setRegistryName(new ResourceLocation(HorseColors.MODID, "genes")));
+    }
+}
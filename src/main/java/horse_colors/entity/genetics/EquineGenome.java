@@ -1,6 +1,7 @@
 package sekelsta.horse_colors.entity.genetics;
 
 import java.util.*;
+import javax.annotation.Nullable;
 
 import com.google.common.collect.ImmutableList;
 import net.minecraftforge.api.distmarker.Dist;
@@ -9,6 +10,7 @@ import net.minecraftforge.api.distmarker.OnlyIn;
 import sekelsta.horse_colors.HorseColors;
 import sekelsta.horse_colors.breed.Breed;
 import sekelsta.horse_colors.client.renderer.TextureLayer;
+import sekelsta.horse_colors.client.renderer.VisualPlan;
 import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.entity.*;
 import sekelsta.horse_colors.util.RandomSupplier;
@@ -182,9 +184,62 @@ public class EquineGenome extends Genome {
 
     public static final double MINIATURE_CUTOFF = 317.5;
 
+    // Genes that never change how a horse looks
+    private static final EnumSet<Gene> NON_VISUAL_GENES = EnumSet.noneOf(Gene.class);
+    static {
+        for (Gene gene : Gene.values()) {
+            String name = gene.name();
+            if (name.startsWith("speed") || name.startsWith("athletics")
+                    || name.startsWith("jump") || name.startsWith("health")
+                    || name.startsWith("immune") || name.startsWith("mhc")
+                    || name.startsWith("size") || name.startsWith("donkey_size")) {
+                NON_VISUAL_GENES.add(gene);
+            }
+        }
+        NON_VISUAL_GENES.add(Gene.LCORL);
+        NON_VISUAL_GENES.add(Gene.HMGA2);
+        NON_VISUAL_GENES.add(Gene.double_ovulation);
+    }
+
+    // Genes only the server needs. Attributes are synced on their own, so
+    // clients are not sent these unless they ask.
+    private static final EnumSet<Gene> STAT_GENES = EnumSet.noneOf(Gene.class);
+    static {
+        for (Gene gene : Gene.values()) {
+            String name = gene.name();
+            if (name.startsWith("speed") || name.startsWith("athletics")
+                    || name.startsWith("jump") || name.startsWith("health")
+                    || name.startsWith("immune") || name.startsWith("mhc")) {
+                STAT_GENES.add(gene);
+            }
+        }
+        STAT_GENES.add(Gene.double_ovulation);
+    }
+
     // For converting to and from the save format used in horse_colors-1.4.x and earlier
     private static final ImmutableList<String> chromosomes = ImmutableList.of("0", "1", "2", "3", "speed", "jump", "health", "mhc1", "mhc2", "immune", "random", "4");
 
+    // Holds the shared texture plan so it stays interned while in use
+    private VisualPlan visualPlan;
+    // The plan the server said to use, if it works them out, and the gene
+    // version it was sent for
+    private VisualPlan serverPlan;
+    private int serverPlanVersion;
+    // Whether the server works out this horse's plan, in which case the
+    // client waits for it instead of working it out from the genes
+    private boolean serverPlanExpected;
+    // Age at which gray horses need their texture rebuilt
+    private int nextGrayStageAge = Integer.MAX_VALUE;
+    // The config generation the texture was worked out for
+    private int textureConfigGeneration;
+    // genesToString is called for every save and gene book, so remember it
+    private String geneStringCache;
+    private int geneStringVersion;
+    private boolean geneStringMale;
+    private int geneStringLength;
+    private long visualHash;
+    private int visualHashVersion;
+
     public EquineGenome(Species species, IGeneticEntity entityIn) {
         super(species, entityIn, new RandomSupplier(ImmutableList.of("leg_white",
                 "face_white", "star_choice", "roan_density", "liver_darkness", 
@@ -195,13 +250,24 @@ public class EquineGenome extends Genome {
         this(species, new FakeGeneticEntity());
     }
 
+    private static final List<Enum> GENES = Collections.unmodifiableList(Arrays.asList(Gene.values()));
+    private static volatile List<Genome.Linkage> linkages;
+
     @Override
     public List<Enum> listGenes() {
-        return Arrays.asList(Gene.values());
+        return GENES;
     }
 
     @Override
     public List<Genome.Linkage> listLinkages() {
+        // The same for every horse, so only build it once
+        if (linkages == null) {
+            linkages = Collections.unmodifiableList(buildLinkages());
+        }
+        return linkages;
+    }
+
+    private List<Genome.Linkage> buildLinkages() {
         List<Genome.Linkage> linkages = super.listLinkages();
         // It doesn't matter if some appear twice, the last will be used
         // Extension and KIT are about 20 cM apart, based on the map in
@@ -740,8 +806,12 @@ public class EquineGenome extends Genome {
 
     // Returns adult weight in kilograms
     public float getGeneticWeightKg() {
+        return weightKgForScale(this.getAdultScale());
+    }
+
+    // Weight in kilograms of a full-grown horse of the given scale
+    public static float weightKgForScale(float scale) {
         // A full-grown horse with scale 1 is 132 cm tall and weighs ~800 pounds
-        float scale = this.getAdultScale();
         return 362.9f * scale * scale * scale;
     }
 
@@ -764,12 +834,7 @@ public class EquineGenome extends Genome {
     }
 
     public int getAge() {
-        if (entity instanceof AbstractHorseGenetic) {
-            return ((AbstractHorseGenetic)entity).getDisplayAge();
-        }
-        else {
-            return 0;
-        }
+        return entity.getDisplayAge();
     }
 
     // Distribution should be a series of floats increasing from
@@ -788,6 +853,7 @@ public class EquineGenome extends Genome {
     }
 
     protected void randomizeGenes(Breed breed) {
+        char[] genes = getGeneChars();
         for (Enum gene : listGenes()) {
             if (!breed.contains(gene)) {
                 HorseColors.logger.debug(gene.toString() + " is not in the given map");
@@ -795,11 +861,10 @@ public class EquineGenome extends Genome {
             // If it doesn't contain the gene, it will return a sensible
             // default value
             List<Float> distribution = breed.get(gene);
-            int allele0 = chooseRandomAllele(distribution);
-            int allele1 = chooseRandomAllele(distribution);
-            setAllele(gene, 0, allele0);
-            setAllele(gene, 1, allele1);
+            genes[2 * gene.ordinal()] = (char)chooseRandomAllele(distribution);
+            genes[2 * gene.ordinal() + 1] = (char)chooseRandomAllele(distribution);
         }
+        setGeneChars(genes);
     }
 
     /* Make the horse have random genetics. */
@@ -820,7 +885,7 @@ public class EquineGenome extends Genome {
         }
 
         entity.setSeed(this.entity.getRand().nextInt());
-        this.entity.setMale(this.rand.nextBoolean());
+        this.entity.setMale(this.entity.getRand().nextBoolean());
     }
 
     public String judgeStatRaw(int val) {
@@ -996,17 +1061,117 @@ public class EquineGenome extends Genome {
     @OnlyIn(Dist.CLIENT)
     public void setTexturePaths()
     {
-        this.textureLayers = HorseColorCalculator.getTexturePaths(this);
-        this.textureCacheName = "horse/cache_" + this.textureLayers.getUniqueName();
+        if (this.serverPlan != null && this.serverPlanVersion != this.getGeneVersion()) {
+            // Sent for genes the horse no longer has
+            this.serverPlan = null;
+        }
+        if (this.serverPlan != null) {
+            // The server sends a new plan when the horse changes how it looks
+            this.visualPlan = this.serverPlan;
+            this.nextGrayStageAge = Integer.MAX_VALUE;
+        }
+        else if (this.serverPlanExpected) {
+            // Nothing to show until the server's plan arrives
+            this.visualPlan = null;
+            this.nextGrayStageAge = Integer.MAX_VALUE;
+            this.textureConfigGeneration = HorseConfig.getGeneration();
+            this.textureLayers = null;
+            this.textureCacheName = null;
+            return;
+        }
+        else {
+            // Horses that look the same share one plan
+            this.visualPlan = VisualPlan.of(this);
+            this.nextGrayStageAge = HorseColorCalculator.getNextGrayStageAge(this);
+        }
+        this.textureConfigGeneration = HorseConfig.getGeneration();
+        this.textureLayers = this.visualPlan.layers;
+        this.textureCacheName = this.visualPlan.name;
+    }
+
+    // Whether the server works out the plan, and the plan if it has arrived
+    @OnlyIn(Dist.CLIENT)
+    public void setServerPlan(boolean expected, @Nullable VisualPlan plan) {
+        this.serverPlanExpected = expected;
+        this.serverPlan = plan;
+        this.serverPlanVersion = this.getGeneVersion();
+        this.resetTexture();
+    }
+
+    // Null while waiting for the server's plan
+    @Nullable
+    @OnlyIn(Dist.CLIENT)
+    public VisualPlan getVisualPlan() {
+        this.getTexture();
+        return this.visualPlan;
+    }
+
+    @Override
+    protected boolean isTextureOutdated() {
+        return this.getAge() >= this.nextGrayStageAge
+            || this.textureConfigGeneration != HorseConfig.getGeneration();
+    }
+
+    // The display age at which the current texture stops being accurate
+    @OnlyIn(Dist.CLIENT)
+    public int getNextGrayStageAge() {
+        this.getTexture();
+        return this.nextGrayStageAge;
+    }
+
+    // A copy of this genome as it would look at a different age
+    public EquineGenome atAge(int displayAge) {
+        return new EquineGenome(this.species, new FakeGeneticEntity(this.entity, displayAge));
+    }
+
+    // Like getGeneHash, but only for the genes that affect appearance
+    public long getVisualHash() {
+        int version = this.getGeneVersion();
+        if (version != visualHashVersion) {
+            String genes = entity.getGeneData();
+            Gene[] values = Gene.values();
+            long hash = 0;
+            for (int i = 0; i < Math.min(genes.length(), 2 * values.length); ++i) {
+                if (!NON_VISUAL_GENES.contains(values[i / 2])) {
+                    hash ^= alleleHash(i, genes.charAt(i));
+                }
+            }
+            visualHash = hash;
+            visualHashVersion = version;
+        }
+        return visualHash;
+    }
+
+    // The genes to sync to clients, with the ones they do not need set to 0
+    public static String syncedGenes(String genes) {
+        Gene[] values = Gene.values();
+        char[] chars = genes.toCharArray();
+        for (int i = 0; i < Math.min(chars.length, 2 * values.length); ++i) {
+            if (STAT_GENES.contains(values[i / 2])) {
+                chars[i] = 0;
+            }
+        }
+        return new String(chars);
     }
 
     public String genesToString() {
-        String answer = entity.isMale()? "M" : "F";
+        boolean male = entity.isMale();
         String genes = entity.getGeneData();
+        int version = this.getGeneVersion();
+        if (geneStringCache != null && geneStringVersion == version
+                && geneStringMale == male && geneStringLength == genes.length()) {
+            return geneStringCache;
+        }
+        StringBuilder answer = new StringBuilder(1 + 2 * genes.length());
+        answer.append(male? "M" : "F");
         for (int i = 0; i < genes.length(); ++i) {
-            answer += String.format("%1$02X", (int)genes.charAt(i));
+            answer.append(String.format("%1$02X", (int)genes.charAt(i)));
         }
-        return answer;
+        geneStringCache = answer.toString();
+        geneStringVersion = version;
+        geneStringMale = male;
+        geneStringLength = genes.length();
+        return geneStringCache;
     }
 
     public void genesFromString(String s) {
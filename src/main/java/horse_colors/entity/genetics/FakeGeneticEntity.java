@@ -3,17 +3,32 @@ package sekelsta.horse_colors.entity.genetics;
 import java.util.HashMap;
 import net.minecraft.entity.AgeableEntity;
 
+import sekelsta.horse_colors.breed.Breed;
+
 public class FakeGeneticEntity implements IGeneticEntity {
     private Genome genome; 
     private String geneData;
     private boolean gender;
     private float motherSize;
     private int seed;
+    private int displayAge;
+    private java.util.Random rand = new java.util.Random();
+    private Breed defaultBreed = null;
 
     public FakeGeneticEntity() {
          geneData = "";
     }
 
+    // Snapshot of another entity's genetic state, for example to work out
+    // what it will look like when it is older
+    public FakeGeneticEntity(IGeneticEntity entity, int displayAge) {
+        this.geneData = entity.getGeneData();
+        this.gender = entity.isMale();
+        this.motherSize = entity.getMotherSize();
+        this.seed = entity.getSeed();
+        this.displayAge = displayAge;
+    }
+
     @Override
     public Genome getGenome() {
         return genome;
@@ -41,7 +56,11 @@ public class FakeGeneticEntity implements IGeneticEntity {
 
     @Override
     public java.util.Random getRand() {
-        return new java.util.Random();
+        return rand;
+    }
+
+    public void setRand(java.util.Random rand) {
+        this.rand = rand;
     }
 
     @Override
@@ -69,6 +88,29 @@ public class FakeGeneticEntity implements IGeneticEntity {
         return 0;
     }
 
+    @Override
+    public int getDisplayAge() {
+        return displayAge;
+    }
+
+    public void setDisplayAge(int age) {
+        this.displayAge = age;
+    }
+
+    // Mutations choose from the default breed's alleles, so set this to
+    // something with gene frequencies before mutating
+    @Override
+    public Breed getDefaultBreed() {
+        if (defaultBreed == null) {
+            return IGeneticEntity.super.getDefaultBreed();
+        }
+        return defaultBreed;
+    }
+
+    public void setDefaultBreed(Breed breed) {
+        this.defaultBreed = breed;
+    }
+
     @Override
     public boolean setPregnantWith(AgeableEntity child, AgeableEntity otherParent) {
         return false;
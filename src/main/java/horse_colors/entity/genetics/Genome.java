@@ -26,6 +26,17 @@ public abstract class Genome {
 
     protected String textureCacheName;
     protected TextureLayerGroup textureLayers;
+    // The gene version the texture was made for
+    protected int textureGeneVersion;
+
+    // Zobrist-style hash of the gene string, kept up to date as alleles are
+    // set so caches can check whether the genes changed without comparing
+    // or rebuilding strings
+    private long geneHash;
+    // Incremented each time the hash changes
+    private int geneVersion;
+    // The gene string the hash was computed from
+    private String hashedGenes;
 
     protected final RandomSupplier randSource;
 
@@ -51,11 +62,24 @@ public abstract class Genome {
     public abstract void genesFromString(String s);
     public abstract boolean isValidGeneString(String s);
 
+    // Whether something other than the genes, such as age, has changed how
+    // the texture should look
+    protected boolean isTextureOutdated() {
+        return false;
+    }
+
+    private boolean needsTexture() {
+        return this.textureCacheName == null
+            || this.textureGeneVersion != this.getGeneVersion()
+            || this.isTextureOutdated();
+    }
+
     @OnlyIn(Dist.CLIENT)
     public String getTexture()
     {
-        if (this.textureCacheName == null)
+        if (this.needsTexture())
         {
+            this.textureGeneVersion = this.getGeneVersion();
             this.setTexturePaths();
         }
         return this.textureCacheName;
@@ -64,14 +88,72 @@ public abstract class Genome {
     @OnlyIn(Dist.CLIENT)
     public TextureLayerGroup getTexturePaths()
     {
-        if (this.textureCacheName == null)
+        if (this.needsTexture())
         {
+            this.textureGeneVersion = this.getGeneVersion();
             this.setTexturePaths();
         }
 
         return this.textureLayers;
     }
 
+    // The value an allele adds to the gene hash. Each position and value
+    // gets its own well mixed 64 bit key, computed instead of stored in a
+    // table. Zero is the same as a missing allele, so it adds nothing, and
+    // gene strings that differ only by trailing zeros hash the same.
+    protected static long alleleHash(int index, int value) {
+        if (value == 0) {
+            return 0;
+        }
+        long h = (((long)index << 16) | value) * 0x9E3779B97F4A7C15L;
+        h = (h ^ (h >>> 30)) * 0xBF58476D1CE4E5B9L;
+        h = (h ^ (h >>> 27)) * 0x94D049BB133111EBL;
+        return h ^ (h >>> 31);
+    }
+
+    public long getGeneHash() {
+        String genes = entity.getGeneData();
+        // Compare by reference: if the string object is the one that was
+        // hashed, the hash is current. Otherwise something other than this
+        // genome set the genes, such as loading or a packet, so start over.
+        if (genes != this.hashedGenes) {
+            long hash = 0;
+            for (int i = 0; i < genes.length(); ++i) {
+                hash ^= alleleHash(i, genes.charAt(i));
+            }
+            this.updateHash(genes, hash);
+        }
+        return this.geneHash;
+    }
+
+    // Changes whenever the genes change, so callers can remember the version
+    // they last saw and skip work if it is the same
+    public int getGeneVersion() {
+        this.getGeneHash();
+        return this.geneVersion;
+    }
+
+    private void updateHash(String genes, long hash) {
+        if (this.hashedGenes == null || hash != this.geneHash) {
+            this.geneVersion++;
+        }
+        this.geneHash = hash;
+        this.hashedGenes = genes;
+    }
+
+    // Set the gene string along with the hash worked out from the alleles
+    // that changed. The hash has to be in place first, since entities look
+    // at the gene version as soon as the genes are set.
+    private void writeGenes(String after, long hash) {
+        this.updateHash(after, hash);
+        entity.setGeneData(after);
+        String stored = entity.getGeneData();
+        if (stored != after && stored.equals(after)) {
+            // The entity kept the old string since the contents are equal
+            this.hashedGenes = stored;
+        }
+    }
+
     @Deprecated
     public abstract int getGeneSize(String gene);
 
@@ -188,21 +270,57 @@ public abstract class Genome {
 
     public void setAllele(Enum gene, int n, int v) {
         int index = 2 * gene.ordinal() + n;
-        StringBuffer buffer = new StringBuffer(entity.getGeneData());
+        long hash = this.getGeneHash();
+        String genes = entity.getGeneData();
+        int old = index < genes.length() ? genes.charAt(index) : 0;
+        if (old == v) {
+            return;
+        }
         // Append null characters until it is long enough
-        if (buffer.length() <= index) {
-            buffer.setLength(index + 1);
+        char[] chars = new char[Math.max(genes.length(), index + 1)];
+        genes.getChars(0, genes.length(), chars, 0);
+        chars[index] = (char)v;
+        hash ^= alleleHash(index, old) ^ alleleHash(index, v);
+        this.writeGenes(new String(chars), hash);
+    }
+
+    // For changing many alleles at once without rebuilding the gene string
+    // for each one. Pass the result to setGeneChars when done.
+    protected char[] getGeneChars() {
+        String genes = entity.getGeneData();
+        char[] chars = new char[Math.max(genes.length(), 2 * listGenes().size())];
+        genes.getChars(0, genes.length(), chars, 0);
+        return chars;
+    }
+
+    protected void setGeneChars(char[] chars) {
+        long hash = this.getGeneHash();
+        String genes = entity.getGeneData();
+        for (int i = 0; i < Math.max(chars.length, genes.length()); ++i) {
+            int old = i < genes.length() ? genes.charAt(i) : 0;
+            int v = i < chars.length ? chars[i] : 0;
+            if (old != v) {
+                hash ^= alleleHash(i, old) ^ alleleHash(i, v);
+            }
         }
-        buffer.setCharAt(index, (char)v);
-        entity.setGeneData(new String(buffer));
+        this.writeGenes(new String(chars), hash);
     }
 
     // Replace the given allele with a random one.
     // It may be the same as before.
     public void mutateAllele(Enum gene, int n) {
+        int v = this.randomAllele(gene);
+        if (v >= 0) {
+            setAllele(gene, n, v);
+        }
+    }
+
+    // A random allele the default breed allows, or -1 if it does not have
+    // the gene
+    private int randomAllele(Enum gene) {
         Breed breed = entity.getDefaultBreed();
         if (!breed.contains(gene)) {
-            return;
+            return -1;
         }
         List<Float> frequencies = breed.get(gene);
         List<Integer> allowedAlleles = new ArrayList<>();
@@ -217,25 +335,43 @@ public abstract class Genome {
             }
         }
         int size = allowedAlleles.size();
-        int v = allowedAlleles.get(this.rand.nextInt(size));
-        setAllele(gene, n, v);
+        return allowedAlleles.get(entity.getRand().nextInt(size));
     }
 
     // Will mutate with p probability
     public void mutateAlleleChance(Enum gene, int n, double p) {
-        if (this.rand.nextDouble() < p) {
+        if (entity.getRand().nextDouble() < p) {
             mutateAllele(gene, n);
         }
     }
 
     public void mutate() {
+        char[] genes = this.mutate(null);
+        if (genes != null) {
+            this.setGeneChars(genes);
+        }
+    }
+
+    // Mutate the alleles in a gene array, the same as mutateAlleleChance for
+    // each one, so the gene string is only rebuilt once. If no array is
+    // given, one is made when the first allele mutates, and null is returned
+    // if none did.
+    private char[] mutate(char[] genes) {
         double p = HorseConfig.GENETICS.mutationChance.get();
         for (Enum gene : listGenes()) {
-            int a = getAllele(gene, 0);
-            int b = getAllele(gene, 1);
-            mutateAlleleChance(gene, 0, p);
-            mutateAlleleChance(gene, 1, p);
+            for (int n = 0; n < 2; ++n) {
+                if (entity.getRand().nextDouble() < p) {
+                    int v = this.randomAllele(gene);
+                    if (v >= 0) {
+                        if (genes == null) {
+                            genes = this.getGeneChars();
+                        }
+                        genes[2 * gene.ordinal() + n] = (char)v;
+                    }
+                }
+            }
         }
+        return genes;
     }
 
     // Add together allele values for a set of genes named according to
@@ -277,21 +413,27 @@ public abstract class Genome {
     }
 
     public void inheritGenes(Genome parent1, Genome parent2) {
-        int rand1 = this.rand.nextInt(2);
-        int rand2 = this.rand.nextInt(2);
+        Random random = entity.getRand();
+        int rand1 = random.nextInt(2);
+        int rand2 = random.nextInt(2);
+        char[] genes = this.getGeneChars();
         for (Linkage link : this.listLinkages()) {
-            int allele1 = parent1.getAllele(link.gene, rand1);
-            int allele2 = parent2.getAllele(link.gene, rand2);
-            this.setAllele(link.gene, 0, allele1);
-            this.setAllele(link.gene, 1, allele2);
-            if (this.rand.nextFloat() < link.p) {
+            int index = 2 * link.gene.ordinal();
+            genes[index] = (char)parent1.getAllele(link.gene, rand1);
+            genes[index + 1] = (char)parent2.getAllele(link.gene, rand2);
+            if (random.nextFloat() < link.p) {
                 rand1 = 1 - rand1;
             }
-            if (this.rand.nextFloat() < link.p) {
+            if (random.nextFloat() < link.p) {
                 rand2 = 1 - rand2;
             }
         }
-        mutate();
+        mutate(genes);
+        this.setGeneChars(genes);
+    }
+
+    public int getSeed() {
+        return this.entity.getSeed();
     }
 
     public int getRandom(String key) {
@@ -3,8 +3,6 @@ import java.util.*;
 
 import com.google.common.collect.ImmutableList;
 
-import net.minecraftforge.api.distmarker.Dist;
-import net.minecraftforge.api.distmarker.OnlyIn;
 
 import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.client.renderer.TextureLayer;
@@ -17,6 +15,17 @@ public class HorseColorCalculator
 {
     private static final int GRAY_BODY_STAGES = 19;
     private static final int GRAY_MANE_STAGES = 20;
+    private static final int GRAY_CONCENTRATION_STAGES = 50;
+
+    // How much graying darkens the coat at each concentration stage, from
+    // not started to fully gray
+    private static final float[] GRAY_CONCENTRATION = new float[GRAY_CONCENTRATION_STAGES + 2];
+    static {
+        for (int stage = 0; stage < GRAY_CONCENTRATION.length; ++stage) {
+            double val = 1.1 + Math.pow(1.06, stage) * stage / 50. * stage / 50.;
+            GRAY_CONCENTRATION[stage] = (float)val;
+        }
+    }
 
     private static final Color EUMELANIN = new Color(0xc0, 0x9a, 0x5f);
     private static final Color PHEOMELANIN = new Color(0xe4, 0xc0, 0x77);
@@ -38,7 +47,8 @@ public class HorseColorCalculator
         }
     }
 
-    private static Pigment redFurPigment(EquineGenome horse) {
+    // Writes the red fur pigment into out and returns it
+    private static Pigment redFurPigment(EquineGenome horse, Pigment out) {
         // 5, 0.2 looks haflingerish
         // 5, 0.1 looks medium chestnut
         // 6, 0.1 looks liver chestnutish
@@ -46,7 +56,7 @@ public class HorseColorCalculator
         float white = 0.08f;
         // Set albino donkeys to white
         if (horse.isAlbino()) {
-            return new Pigment(Color.WHITE, 0, 0);
+            return out.set(Color.WHITE, 0, 0);
         }
 
         if (horse.isDoubleCream() || horse.isHomozygous(Gene.ivory, HorseAlleles.IVORY)) {
@@ -113,15 +123,45 @@ public class HorseColorCalculator
         else {
             color = PHEOMELANIN;
         }
-        return new Pigment(color, concentration, white);
+        return out.set(color, concentration, white);
+    }
+
+    // The colors several layers start from, worked out once per texture so
+    // that building the layers only does math in place. Each thread keeps
+    // one and fills it again for every texture, so nothing here is
+    // allocated per build.
+    private static class Palette {
+        final Pigment blackBase = new Pigment();
+        final Pigment blackFur = new Pigment();
+        final Color blackBody = new Color();
+        final Color redBody = new Color();
+        boolean gray;
+        float grayConcentration;
+        // Scratch space, reused by each layer in turn
+        final Pigment pigment = new Pigment();
+        final Pigment otherPigment = new Pigment();
+        final Color color = new Color();
+
+        Palette fill(EquineGenome horse) {
+            blackBasePigment(horse, this.blackBase);
+            blackFurPigment(horse, this.blackFur.set(this.blackBase));
+            this.blackFur.toColor(this.blackBody);
+            redBodyColor(horse, this);
+            this.gray = horse.isGray();
+            this.grayConcentration = this.gray ? grayConcentration(horse, horse.getGrayRate()) : 1f;
+            return this;
+        }
     }
 
-    private static Color redBodyColor(EquineGenome horse) {
-        Color color = redFurPigment(horse).toColor();
+    private static final ThreadLocal<Palette> PALETTE = ThreadLocal.withInitial(Palette::new);
+
+    // Works out the palette's red body color from its black body color
+    private static void redBodyColor(EquineGenome horse, Palette palette) {
+        Color color = redFurPigment(horse, palette.pigment).toColor(palette.redBody);
         // Treat liver like it leaks some eumelanin into the coat
         int liv = horse.countAlleles(Gene.liver, HorseAlleles.LIVER);
         if (liv > 0) {
-            Color dark = blackBodyColor(horse);
+            Color dark = palette.color.set(palette.blackBody);
             dark.addWhite(0.02f);
 
             // Adjust liver chestnut strength randomly
@@ -140,24 +180,24 @@ public class HorseColorCalculator
             a *= (0.2f + r1) * (1f + r2);
             color.average(dark, a);
         }
-        return color;
     }
 
-    private static TextureLayer getRedBody(EquineGenome horse) {
+    private static TextureLayer getRedBody(Palette palette) {
         TextureLayer layer = new TextureLayer();
         layer.name = fixPath("base");
-        layer.color = redBodyColor(horse);
-        setGrayConcentration(horse, layer);
+        layer.color.set(palette.redBody);
+        setGrayConcentration(palette, layer);
         return layer;
     }
 
-    // The starting color of black pigment, for skin, eyes, and fur.
-    private static Pigment blackBasePigment(EquineGenome horse) {
+    // The starting color of black pigment, for skin, eyes, and fur. Writes
+    // it into out and returns it.
+    private static Pigment blackBasePigment(EquineGenome horse, Pigment out) {
         float concentration = 15f * getRandomShadeModifier(horse);
         float white = 0f;
         // Set albino donkeys to white
         if (horse.isAlbino()) {
-            return new Pigment(Color.WHITE, 0, 0);
+            return out.set(Color.WHITE, 0, 0);
         }
 
         if (horse.isDoubleCream() || horse.isHomozygous(Gene.ivory, HorseAlleles.IVORY)) {
@@ -198,11 +238,11 @@ public class HorseColorCalculator
         }
  
         white = Math.max(white, 0);
-        return new Pigment(EUMELANIN, concentration, white);
+        return out.set(EUMELANIN, concentration, white);
     }
 
-    private static Pigment blackFurPigment(EquineGenome horse) {
-        Pigment pigment = blackBasePigment(horse);
+    // Adjusts the black base pigment into the black fur pigment
+    private static Pigment blackFurPigment(EquineGenome horse, Pigment pigment) {
         pigment.white *= 2f;
         pigment.white += 0.02f;
         // Silver dapple has more effect on the fur than on the eyes and skin
@@ -216,11 +256,7 @@ public class HorseColorCalculator
         return pigment;
     }
 
-    private static Color blackBodyColor(EquineGenome horse) {
-        return blackFurPigment(horse).toColor();
-    }
-
-    private static void addBlackBody(EquineGenome horse, TextureLayerGroup layers) {
+    private static void addBlackBody(EquineGenome horse, Palette palette, TextureLayerGroup layers) {
         if (horse.isChestnut()) {
             return;
         }
@@ -236,7 +272,7 @@ public class HorseColorCalculator
             layer.name = fixPath("brown");
         }
         else {
-            layers.add(getSooty(horse));
+            layers.add(getSooty(horse, palette));
             if (horse.species == Species.DONKEY) {
                 layer.name = fixPath("donkey_bay");
             }
@@ -244,8 +280,8 @@ public class HorseColorCalculator
                 return;
             }
         }
-        layer.color = blackBodyColor(horse);
-        setGrayConcentration(horse, layer);
+        layer.color.set(palette.blackBody);
+        setGrayConcentration(palette, layer);
         layers.add(layer);
     }
 
@@ -256,7 +292,7 @@ public class HorseColorCalculator
         return 1f + x / 100f;
     }
 
-    private static void addRedManeTail(EquineGenome horse, List<TextureLayer> layers) {
+    private static void addRedManeTail(EquineGenome horse, Palette palette, List<TextureLayer> layers) {
         final float PALOMINO_POWER = 0.2f;
         if (!horse.isChestnut()) {
             return;
@@ -267,9 +303,9 @@ public class HorseColorCalculator
             TextureLayer palomino_mane = new TextureLayer();
             palomino_mane.description = "palomino mane";
             palomino_mane.name = fixPath("manetail");
-            palomino_mane.color = redBodyColor(horse);
+            palomino_mane.color.set(palette.redBody);
             palomino_mane.color.power(PALOMINO_POWER);
-            setGrayConcentration(horse, palomino_mane);
+            setGrayConcentration(palette, palomino_mane);
             layers.add(palomino_mane);
         }
 
@@ -283,7 +319,7 @@ public class HorseColorCalculator
         TextureLayer flaxen = new TextureLayer();
         flaxen.name = fixPath("flaxen");
         flaxen.description = "flaxen";
-        flaxen.color = redBodyColor(horse);
+        flaxen.color.set(palette.redBody);
         float power = 1f;
         if (horse.hasAllele(Gene.cream, HorseAlleles.CREAM)) {
             power *= PALOMINO_POWER;
@@ -309,12 +345,12 @@ public class HorseColorCalculator
             white += 0.02f;
         }
         flaxen.color.power(power);
-        setGrayConcentration(horse, flaxen);
+        setGrayConcentration(palette, flaxen);
         flaxen.color.addWhite(white);
         layers.add(flaxen);
     }
 
-    private static TextureLayer getBlackManeTail(EquineGenome horse) {
+    private static TextureLayer getBlackManeTail(EquineGenome horse, Palette palette) {
         if (horse.isChestnut()) {
             return null;
         }
@@ -324,19 +360,19 @@ public class HorseColorCalculator
         TextureLayer layer = new TextureLayer();
         layer.name = fixPath("flaxen");
         layer.description = "silver dapple mane";
-        Pigment black = blackFurPigment(horse);
+        Pigment black = palette.pigment.set(palette.blackFur);
         black.concentration *= 0.3f / 15f;
-        layer.color = black.toColor();
-        setGrayConcentration(horse, layer);
+        black.toColor(layer.color);
+        setGrayConcentration(palette, layer);
         return layer;
     }
 
     // Used for hoof and nose color of most horses. Champagne horses use 
     // blackBasePigment directly
-    private static void colorSkin(EquineGenome horse, TextureLayer layer) {
-        Pigment pigment = blackBasePigment(horse);
+    private static void colorSkin(Palette palette, TextureLayer layer) {
+        Pigment pigment = palette.pigment.set(palette.blackBase);
         pigment.concentration *= 1.2f;
-        layer.color = pigment.toColor();
+        pigment.toColor(layer.color);
         // Multiply by pink
         layer.color.multiply(PINK_SKIN);
     }
@@ -349,30 +385,30 @@ public class HorseColorCalculator
         return 0.34f + (2.56f / 12f) * shade;
     }
 
-    private static void colorGray(EquineGenome horse, TextureLayer layer) {
+    private static void colorGray(Palette palette, TextureLayer layer) {
         // Show skin very faintly through the white hairs
-        colorSkin(horse, layer);
+        colorSkin(palette, layer);
         layer.color.addWhite(0.99f);
     }
 
-    private static void addNose(EquineGenome horse, TextureLayerGroup layerGroup) {
+    private static void addNose(EquineGenome horse, Palette palette, TextureLayerGroup layerGroup) {
         TextureLayer noseBase = new TextureLayer();
         noseBase.name = fixPath("nose");
         // For champagne horses, make the main nose texture pink and add darker
         // freckles
         if (horse.hasAllele(Gene.champagne, HorseAlleles.CHAMPAGNE)) {
-            Pigment frecklePigment = blackBasePigment(horse);
+            Pigment frecklePigment = palette.pigment.set(palette.blackBase);
             TextureLayer freckles = new TextureLayer();
             freckles.name = fixPath("freckles");
             freckles.type = TextureLayer.Type.NO_ALPHA;
             frecklePigment.concentration *= 3f;
-            freckles.color = frecklePigment.toColor();
+            frecklePigment.toColor(freckles.color);
             freckles.color.multiply(PINK_SKIN);
 
-            Pigment black = blackBasePigment(horse);
+            Pigment black = palette.pigment.set(palette.blackBase);
             black.concentration *= 0.2f;
             black.white *= 0.1f;
-            noseBase.color = black.toColor();
+            black.toColor(noseBase.color);
             noseBase.color.multiply(PINK_SKIN);
 
             TextureLayerGroup group = new TextureLayerGroup();
@@ -381,33 +417,33 @@ public class HorseColorCalculator
             layerGroup.add(group);
         }
         else {
-            colorSkin(horse, noseBase);
+            colorSkin(palette, noseBase);
             layerGroup.add(noseBase);
         }
     }
 
-    private static TextureLayer getHooves(EquineGenome horse) {
+    private static TextureLayer getHooves(Palette palette) {
         TextureLayer layer = new TextureLayer();
         layer.name = fixPath("hooves");
-        colorSkin(horse, layer);
+        colorSkin(palette, layer);
         layer.color.addWhite(0.4f);
         // Multiply by the shell color of hooves
         layer.color.multiply(SHELL_HOOF);
         return layer;
     }
 
-    private static TextureLayer getEyes(EquineGenome horse) {
+    private static TextureLayer getEyes(EquineGenome horse, Palette palette) {
         TextureLayer layer = new TextureLayer();
         layer.name = fixPath("iris");
         // Blue background color
-        Pigment blue = new Pigment(BLUE_EYES, blueEyeShade(horse), 0f);
+        Pigment blue = palette.otherPigment.set(BLUE_EYES, blueEyeShade(horse), 0f);
         if (horse.isHomozygous(Gene.MITF, HorseAlleles.MITF_SW1)) {
             // Unpigmented blue eyes
-            layer.color = blue.toColor();
+            blue.toColor(layer.color);
         }
         else {
             // Pigmented eyes
-            Pigment pigment = blackBasePigment(horse);
+            Pigment pigment = palette.pigment.set(palette.blackBase);
             // Champagne lightens the fur more than the eyes
             if (horse.hasAllele(Gene.champagne, HorseAlleles.CHAMPAGNE)) {
                 pigment.concentration *= 1.5f;
@@ -444,8 +480,8 @@ public class HorseColorCalculator
             pigment.white *= 0.2f;
             // Adjust so pigmented eyes have less blue to them
             blue.concentration = Math.max(0f, blue.concentration - 0.5f * pigment.concentration);
-            layer.color = pigment.toColor();
-            layer.color.multiply(blue.toColor());
+            pigment.toColor(layer.color);
+            layer.color.multiply(blue.toColor(palette.color));
         }
         return layer;
     }
@@ -473,17 +509,17 @@ public class HorseColorCalculator
         if (!horse.isDun()) {
             dunpower = 0.9f;
         }
-        layer.color = new Color(dunpower, dunpower, dunpower);
+        layer.color.set(dunpower, dunpower, dunpower);
         layers.add(layer);
     }
 
-    private static TextureLayer getSooty(EquineGenome horse)
+    private static TextureLayer getSooty(EquineGenome horse, Palette palette)
     {
         TextureLayer layer = new TextureLayer();
 
         // Set the color before changing its alpha
-        layer.color = blackBodyColor(horse);
-        setGrayConcentration(horse, layer);
+        layer.color.set(palette.blackBody);
+        setGrayConcentration(palette, layer);
 
         int sooty_level = horse.getSootyLevel();
         switch (sooty_level) {
@@ -517,7 +553,7 @@ public class HorseColorCalculator
         return layer;
     }
 
-    private static void addMealy(EquineGenome horse, List<TextureLayer> textureLayers)
+    private static void addMealy(EquineGenome horse, Palette palette, List<TextureLayer> textureLayers)
     {
         // Agouti black hides mealy
         if (!horse.isMealy()) {
@@ -551,13 +587,13 @@ public class HorseColorCalculator
                 spread -= 1;
                 other = new TextureLayer();
                 other.name = fixPath("mealy/mealy1");
-                other.color = redBodyColor(horse);
+                other.color.set(palette.redBody);
                 other.color.power(0.04f * (2 - color));
             }
         }
 
         light_belly.name = fixPath("mealy/" + prefix + "mealy" + spread);
-        light_belly.color = redBodyColor(horse);
+        light_belly.color.set(palette.redBody);
         light_belly.color.power(0.04f * (2 - color));
 
         textureLayers.add(light_belly);
@@ -566,7 +602,7 @@ public class HorseColorCalculator
         }
     }
 
-    private static void addPoints(EquineGenome horse, List<TextureLayer> layers) {
+    private static void addPoints(EquineGenome horse, Palette palette, List<TextureLayer> layers) {
         TextureLayerGroup points = new TextureLayerGroup();
         // Add dorsal stripe for dun primitive markings
         if (horse.hasStripe()) {
@@ -600,27 +636,27 @@ public class HorseColorCalculator
         // Set the points to be the right color depending on whether the horse
         // is a red dun or bay/black based
         if (horse.isChestnut()) {
-            points.color = redBodyColor(horse);
+            points.color.set(palette.redBody);
             points.color.power(1.1f);
         }
         else {
-            Pigment pigment = blackFurPigment(horse);
+            Pigment pigment = palette.pigment.set(palette.blackFur);
             // Adjust champagnes to have darker points
             if (horse.hasAllele(Gene.champagne, HorseAlleles.CHAMPAGNE)) {
                 pigment.concentration *= 1.2f;
                 pigment.white *= 0.5;
             }
-            points.color = pigment.toColor();
+            pigment.toColor(points.color);
             points.color.power(1.2f);
         }
         // Ignore this for horses that don't need it
         if (points.layers.size() > 0) {
             layers.add(points);
         }
-        setGrayConcentration(horse, points);
+        setGrayConcentration(palette, points);
     }
 
-    private static void addGray(EquineGenome horse, List<TextureLayer> layers) {
+    private static void addGray(EquineGenome horse, Palette palette, List<TextureLayer> layers) {
         if (!horse.isGray()) {
             return;
         }
@@ -638,7 +674,7 @@ public class HorseColorCalculator
             else {
                 body.name = fixPath("gray/dapple" + body_stage);
             }
-            colorGray(horse, body);
+            colorGray(palette, body);
             layers.add(body);
         }
 
@@ -650,44 +686,111 @@ public class HorseColorCalculator
             else {
                 mane.name = fixPath("gray/mane" + mane_stage);
             }
-            colorGray(horse, mane);
+            colorGray(palette, mane);
             layers.add(mane);
         }
     }
 
     // num_stages does not count the starting and ending stages
     private static int grayStage(EquineGenome horse, float rate, int num_stages, float delay) {
+        return grayStageAt(grayFraction(horse.getAge(), rate, delay), num_stages);
+    }
+
+    // How far along the horse is in graying, where 0 is not started and 1 is
+    // fully gray. The result is not clamped to that range.
+    private static float grayFraction(int displayAge, float rate, float delay) {
         final int YEAR_TICKS = (int)(HorseConfig.GROWTH.yearLength.get() * 24000);
         final int MAX_AGE = HorseConfig.GROWTH.getMaxAge();
-        int age = horse.getAge() + 24000;
+        int age = displayAge + 24000;
         age = Math.min(age, MAX_AGE);
         if (!HorseConfig.GROWTH.grayGradually.get()) {
             // If horses should not gray gradually, treat them as being 8 years old
             age = (int)(MAX_AGE * 0.5f);
         }
         float gray_age = (float)age / (float)(YEAR_TICKS * rate);
-        gray_age = (gray_age - delay) / (1f - delay);
+        return (gray_age - delay) / (1f - delay);
+    }
+
+    private static int grayStageAt(float gray_age, int num_stages) {
         if (gray_age <= 0) {
             return 0;
         }
         if (gray_age >= 1f) {
             return num_stages + 1;
         }
+        int steps = HorseConfig.GROWTH.grayTextureStages.get();
+        if (steps > 0) {
+            // Round down so the horse only changes appearance at a few ages
+            gray_age = (int)(gray_age * steps) / (float)steps;
+        }
         return (int)(gray_age * num_stages);
     }
 
+    // Packs every gray stage that affects the texture into one number, which
+    // is the same for all ages that look the same
+    public static int getGrayStages(EquineGenome horse) {
+        if (!horse.isGray()) {
+            return 0;
+        }
+        float rate = horse.getGrayRate();
+        int body = grayStage(horse, rate, GRAY_BODY_STAGES, 0.25f);
+        int mane = grayStage(horse, horse.getGrayManeRate(), GRAY_MANE_STAGES, 0.3f);
+        int concentration = grayStage(horse, rate, GRAY_CONCENTRATION_STAGES, 0f);
+        return 1 << 24 | body << 16 | mane << 8 | concentration;
+    }
+
+    // Returns the display age at which the gray texture layers will next
+    // change, or Integer.MAX_VALUE if they never will.
+    public static int getNextGrayStageAge(EquineGenome horse) {
+        if (!horse.isGray() || !HorseConfig.GROWTH.grayGradually.get()) {
+            return Integer.MAX_VALUE;
+        }
+        int age = horse.getAge();
+        float rate = horse.getGrayRate();
+        int next = nextGrayStageAge(age, rate, GRAY_BODY_STAGES, 0.25f);
+        next = Math.min(next, nextGrayStageAge(age, horse.getGrayManeRate(), GRAY_MANE_STAGES, 0.3f));
+        next = Math.min(next, nextGrayStageAge(age, rate, GRAY_CONCENTRATION_STAGES, 0f));
+        return next;
+    }
+
+    // Inverts grayFraction to find when grayStage will next return something
+    // different. Rounding can make this up to a tick early, so callers should
+    // check the stage again rather than assume it changed.
+    private static int nextGrayStageAge(int displayAge, float rate, int num_stages, float delay) {
+        final int YEAR_TICKS = (int)(HorseConfig.GROWTH.yearLength.get() * 24000);
+        final int MAX_AGE = HorseConfig.GROWTH.getMaxAge();
+        float fraction = grayFraction(displayAge, rate, delay);
+        int current = grayStageAt(fraction, num_stages);
+        int steps = HorseConfig.GROWTH.grayTextureStages.get();
+        if (steps <= 0) {
+            steps = num_stages;
+        }
+        for (int j = (int)(Math.max(0f, fraction) * steps) + 1; j <= steps; ++j) {
+            float f = j / (float)steps;
+            if (grayStageAt(f, num_stages) == current) {
+                continue;
+            }
+            float gray_age = f * (1f - delay) + delay;
+            int age = (int)Math.ceil(gray_age * YEAR_TICKS * rate);
+            if (age > MAX_AGE) {
+                // Aging stops having an effect after this
+                return Integer.MAX_VALUE;
+            }
+            return Math.max(age - 24000, displayAge + 1);
+        }
+        return Integer.MAX_VALUE;
+    }
+
     private static float grayConcentration(EquineGenome horse, float rate) {
-        int stage = grayStage(horse, rate, 50, 0f);
-        double val = 1.1 + Math.pow(1.06, stage) * stage / 50. * stage / 50.;
-        return (float)val;
+        int stage = grayStage(horse, rate, GRAY_CONCENTRATION_STAGES, 0f);
+        return GRAY_CONCENTRATION[stage];
     }
 
-    private static void setGrayConcentration(EquineGenome horse, TextureLayer layer) {
-        if (horse.isGray()) {
+    private static void setGrayConcentration(Palette palette, TextureLayer layer) {
+        if (palette.gray) {
             // Darken by increasing concentration
-            float concentration = grayConcentration(horse, horse.getGrayRate());
-            Color dark = new Color(layer.color);
-            dark.power(concentration);
+            Color dark = palette.color.set(layer.color);
+            dark.power(palette.grayConcentration);
             // Darken by averaging with black
             float lightnessDiff = (float)(dark.r + dark.g + dark.b) / (layer.color.r + layer.color.g + layer.color.b);
             layer.color.average(Color.BLACK, 1f - lightnessDiff);
@@ -697,21 +800,22 @@ public class HorseColorCalculator
     }
 
 
-    @OnlyIn(Dist.CLIENT)
+    // Servers also call this when they send texture plans to players
     public static TextureLayerGroup getTexturePaths(EquineGenome horse) {
         List<TextureLayer> textureLayers = new ArrayList<TextureLayer>();
         TextureLayerGroup layerGroup = new TextureLayerGroup(textureLayers);
-        TextureLayer red = HorseColorCalculator.getRedBody(horse);
+        Palette palette = PALETTE.get().fill(horse);
+        TextureLayer red = HorseColorCalculator.getRedBody(palette);
         textureLayers.add(red);
-        addMealy(horse, textureLayers);
-        addBlackBody(horse, layerGroup);
+        addMealy(horse, palette, textureLayers);
+        addBlackBody(horse, palette, layerGroup);
         HorseColorCalculator.addDun(horse, textureLayers);
-        addPoints(horse, textureLayers);
-        HorseColorCalculator.addRedManeTail(horse, textureLayers);
-        textureLayers.add(HorseColorCalculator.getBlackManeTail(horse));
-        HorseColorCalculator.addGray(horse, textureLayers);
-        addNose(horse, layerGroup);
-        textureLayers.add(HorseColorCalculator.getHooves(horse));
+        addPoints(horse, palette, textureLayers);
+        HorseColorCalculator.addRedManeTail(horse, palette, textureLayers);
+        textureLayers.add(HorseColorCalculator.getBlackManeTail(horse, palette));
+        HorseColorCalculator.addGray(horse, palette, textureLayers);
+        addNose(horse, palette, layerGroup);
+        textureLayers.add(HorseColorCalculator.getHooves(palette));
 
         // Add roan
         if (horse.hasAllele(Gene.KIT, HorseAlleles.KIT_ROAN)) {
@@ -739,7 +843,7 @@ public class HorseColorCalculator
         HorsePatternCalculator.addPinto(horse, textureLayers);
         HorsePatternCalculator.addLeopard(horse, textureLayers);
 
-        textureLayers.add(HorseColorCalculator.getEyes(horse));
+        textureLayers.add(HorseColorCalculator.getEyes(horse, palette));
 
         TextureLayer highlights = new TextureLayer();
         highlights.name = HorseColorCalculator.fixPath("base");
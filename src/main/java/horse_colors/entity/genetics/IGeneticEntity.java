@@ -27,6 +27,11 @@ public interface IGeneticEntity {
     int getBirthAge();
     int getTrueAge();
 
+    // The age used for age-dependent colors
+    default int getDisplayAge() {
+        return 0;
+    }
+
     default float getFractionGrown() {
         int age = getTrueAge();
         if (age < 0) {
@@ -0,0 +1,52 @@
+package sekelsta.horse_colors.network;
+
+import java.util.function.Supplier;
+import net.minecraft.entity.Entity;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+import net.minecraftforge.fml.network.PacketDistributor;
+
+import sekelsta.horse_colors.config.HorseConfig;
+import sekelsta.horse_colors.entity.AbstractHorseGenetic;
+
+// Asks for all of a horse's genes, including the ones clients are not
+// normally sent, for the debug overlay
+public class CRequestGenesPacket {
+    // Farther than anyone looks at a horse to read its genes
+    private static final double MAX_DISTANCE = 32;
+
+    private int entityId;
+
+    public CRequestGenesPacket(int entityId) {
+        this.entityId = entityId;
+    }
+
+    public void encode(PacketBuffer buffer) {
+        buffer.writeVarInt(this.entityId);
+    }
+
+    public static CRequestGenesPacket decode(PacketBuffer buffer) {
+        return new CRequestGenesPacket(buffer.readVarInt());
+    }
+
+    private void handleMain(Context context) {
+        ServerPlayerEntity sender = context.getSender();
+        if (sender == null || !HorseConfig.COMMON.horseDebugInfo.get()) {
+            return;
+        }
+        Entity target = sender.level.getEntity(this.entityId);
+        if (!(target instanceof AbstractHorseGenetic)
+                || sender.distanceToSqr(target) > MAX_DISTANCE * MAX_DISTANCE) {
+            return;
+        }
+        AbstractHorseGenetic horse = (AbstractHorseGenetic)target;
+        HorseColorsPacketHandler.CHANNEL.send(PacketDistributor.PLAYER.with(() -> sender),
+            new SGenesPacket(this.entityId, horse.getGeneData()));
+    }
+
+    public void handle(Supplier<Context> context) {
+        context.get().enqueueWork(() -> handleMain(context.get()));
+        context.get().setPacketHandled(true);
+    }
+}
@@ -0,0 +1,43 @@
+package sekelsta.horse_colors.network;
+
+import java.util.function.Supplier;
+import net.minecraft.entity.player.ServerPlayerEntity;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+import net.minecraftforge.fml.network.PacketDistributor;
+
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+
+// Asks for the texture layers of a plan number the client has not seen yet
+public class CRequestPlanPacket {
+    private int planId;
+
+    public CRequestPlanPacket(int planId) {
+        this.planId = planId;
+    }
+
+    public void encode(PacketBuffer buffer) {
+        buffer.writeVarInt(this.planId);
+    }
+
+    public static CRequestPlanPacket decode(PacketBuffer buffer) {
+        return new CRequestPlanPacket(buffer.readVarInt());
+    }
+
+    private void handleMain(Context context) {
+        ServerPlayerEntity sender = context.getSender();
+        if (sender == null) {
+            return;
+        }
+        TextureLayerGroup layers = TexturePlanSync.getLayers(this.planId);
+        if (layers != null) {
+            HorseColorsPacketHandler.CHANNEL.send(PacketDistributor.PLAYER.with(() -> sender),
+                new SHorsePlanPacket(this.planId, layers));
+        }
+    }
+
+    public void handle(Supplier<Context> context) {
+        context.get().enqueueWork(() -> handleMain(context.get()));
+        context.get().setPacketHandled(true);
+    }
+}
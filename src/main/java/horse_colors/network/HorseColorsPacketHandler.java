@@ -1,6 +1,8 @@
 package sekelsta.horse_colors.network;
 
+import java.util.Optional;
 import net.minecraft.util.ResourceLocation;
+import net.minecraftforge.fml.network.NetworkDirection;
 import net.minecraftforge.fml.network.NetworkRegistry;
 import net.minecraftforge.fml.network.simple.SimpleChannel;
 import sekelsta.horse_colors.HorseColors;
@@ -8,7 +10,7 @@ import sekelsta.horse_colors.HorseColors;
 public class HorseColorsPacketHandler {
     private static int ID = 0;
 
-    private static final String PROTOCOL_VERSION = "1";
+    private static final String PROTOCOL_VERSION = "6";
 
     public static final SimpleChannel CHANNEL = NetworkRegistry.newSimpleChannel(
         // Name
@@ -25,5 +27,17 @@ public class HorseColorsPacketHandler {
         CHANNEL.registerMessage(ID++, CMountEntityPacket.class, 
             CMountEntityPacket::encode, CMountEntityPacket::decode, 
             CMountEntityPacket::handle);
+        CHANNEL.registerMessage(ID++, CRequestGenesPacket.class,
+            CRequestGenesPacket::encode, CRequestGenesPacket::decode,
+            CRequestGenesPacket::handle, Optional.of(NetworkDirection.PLAY_TO_SERVER));
+        CHANNEL.registerMessage(ID++, SGenesPacket.class,
+            SGenesPacket::encode, SGenesPacket::decode,
+            SGenesPacket::handle, Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+        CHANNEL.registerMessage(ID++, SHorsePlanPacket.class,
+            SHorsePlanPacket::encode, SHorsePlanPacket::decode,
+            SHorsePlanPacket::handle, Optional.of(NetworkDirection.PLAY_TO_CLIENT));
+        CHANNEL.registerMessage(ID++, CRequestPlanPacket.class,
+            CRequestPlanPacket::encode, CRequestPlanPacket::decode,
+            CRequestPlanPacket::handle, Optional.of(NetworkDirection.PLAY_TO_SERVER));
     }
 }
@@ -0,0 +1,37 @@
+package sekelsta.horse_colors.network;
+
+import java.util.function.Supplier;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+
+import sekelsta.horse_colors.client.ClientPacketHandler;
+import sekelsta.horse_colors.entity.ModDataSerializers;
+
+// All of a horse's genes, in reply to CRequestGenesPacket
+public class SGenesPacket {
+    public final int entityId;
+    public final String genes;
+
+    public SGenesPacket(int entityId, String genes) {
+        this.entityId = entityId;
+        this.genes = genes;
+    }
+
+    public void encode(PacketBuffer buffer) {
+        buffer.writeVarInt(this.entityId);
+        ModDataSerializers.writeGenes(buffer, this.genes);
+    }
+
+    public static SGenesPacket decode(PacketBuffer buffer) {
+        int entityId = buffer.readVarInt();
+        return new SGenesPacket(entityId, ModDataSerializers.readGenes(buffer));
+    }
+
+    public void handle(Supplier<Context> context) {
+        context.get().enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT,
+            () -> () -> ClientPacketHandler.handleGenes(this)));
+        context.get().setPacketHandled(true);
+    }
+}
@@ -0,0 +1,99 @@
+package sekelsta.horse_colors.network;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import net.minecraft.network.PacketBuffer;
+import net.minecraftforge.api.distmarker.Dist;
+import net.minecraftforge.fml.DistExecutor;
+import net.minecraftforge.fml.network.NetworkEvent.Context;
+
+import sekelsta.horse_colors.client.ClientPacketHandler;
+import sekelsta.horse_colors.client.renderer.TextureLayer;
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+
+// The texture layers for a plan number, in reply to CRequestPlanPacket
+public class SHorsePlanPacket {
+    private static final int NONE = 0;
+    private static final int LAYER = 1;
+    private static final int GROUP = 2;
+
+    public final int planId;
+    @Nullable
+    public final TextureLayerGroup layers;
+
+    public SHorsePlanPacket(int planId, @Nullable TextureLayerGroup layers) {
+        this.planId = planId;
+        this.layers = layers;
+    }
+
+    public void encode(PacketBuffer buffer) {
+        buffer.writeVarInt(this.planId);
+        writeLayer(buffer, this.layers);
+    }
+
+    public static SHorsePlanPacket decode(PacketBuffer buffer) {
+        int planId = buffer.readVarInt();
+        TextureLayer layers = readLayer(buffer);
+        return new SHorsePlanPacket(planId,
+            layers instanceof TextureLayerGroup ? (TextureLayerGroup)layers : null);
+    }
+
+    private static void writeLayer(PacketBuffer buffer, @Nullable TextureLayer layer) {
+        if (layer == null) {
+            buffer.writeByte(NONE);
+            return;
+        }
+        boolean group = layer instanceof TextureLayerGroup;
+        buffer.writeByte(group ? GROUP : LAYER);
+        buffer.writeBoolean(layer.name != null);
+        if (layer.name != null) {
+            buffer.writeUtf(layer.name);
+        }
+        buffer.writeByte(layer.type.ordinal());
+        buffer.writeFloat(layer.color.r);
+        buffer.writeFloat(layer.color.g);
+        buffer.writeFloat(layer.color.b);
+        buffer.writeFloat(layer.color.a);
+        if (group) {
+            List<TextureLayer> layers = ((TextureLayerGroup)layer).layers;
+            buffer.writeVarInt(layers.size());
+            for (TextureLayer child : layers) {
+                writeLayer(buffer, child);
+            }
+        }
+    }
+
+    @Nullable
+    private static TextureLayer readLayer(PacketBuffer buffer) {
+        int kind = buffer.readByte();
+        if (kind == NONE) {
+            return null;
+        }
+        TextureLayer layer = kind == GROUP ? new TextureLayerGroup() : new TextureLayer();
+        if (buffer.readBoolean()) {
+            layer.name = buffer.readUtf();
+        }
+        layer.type = TextureLayer.Type.values()[buffer.readByte()];
+        layer.color.r = buffer.readFloat();
+        layer.color.g = buffer.readFloat();
+        layer.color.b = buffer.readFloat();
+        layer.color.a = buffer.readFloat();
+        if (kind == GROUP) {
+            int count = buffer.readVarInt();
+            List<TextureLayer> layers = new ArrayList<>(count);
+            for (int i = 0; i < count; ++i) {
+                layers.add(readLayer(buffer));
+            }
+            ((TextureLayerGroup)layer).layers = layers;
+        }
+        return layer;
+    }
+
+    public void handle(Supplier<Context> context) {
+        context.get().enqueueWork(() -> DistExecutor.unsafeRunWhenOn(Dist.CLIENT,
+            () -> () -> ClientPacketHandler.handleHorsePlan(this)));
+        context.get().setPacketHandled(true);
+    }
+}
@@ -0,0 +1,48 @@
+package sekelsta.horse_colors.network;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import javax.annotation.Nullable;
+import net.minecraftforge.fml.event.server.FMLServerStoppedEvent;
+
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+import sekelsta.horse_colors.config.HorseConfig;
+
+// Lets the server work out each horse's texture layers once and send them,
+// instead of every player's game working them out from the genes. Each
+// different set of layers gets a number the first time the server sees it.
+// Horses carry the number in their synced data, and a player asks for the
+// layers the first time they see a number they do not know.
+public class TexturePlanSync {
+    private static final Map<String, Integer> IDS = new HashMap<>();
+    private static final List<TextureLayerGroup> PLANS = new ArrayList<>();
+
+    public static boolean isEnabled() {
+        return HorseConfig.COMMON.serverTexturePlans.get();
+    }
+
+    // Returns the number for the layers, giving them one if they are new
+    public static int getId(TextureLayerGroup layers) {
+        String name = layers.getUniqueName();
+        Integer id = IDS.get(name);
+        if (id == null) {
+            id = PLANS.size();
+            IDS.put(name, id);
+            PLANS.add(layers);
+        }
+        return id;
+    }
+
+    // The layers for a plan number, or null if the server never gave it out
+    @Nullable
+    public static TextureLayerGroup getLayers(int id) {
+        return id >= 0 && id < PLANS.size() ? PLANS.get(id) : null;
+    }
+
+    public static void onServerStopped(FMLServerStoppedEvent event) {
+        IDS.clear();
+        PLANS.clear();
+    }
+}
@@ -30,6 +30,22 @@ public class Color {
         this(copy.r, copy.g, copy.b);
     }
 
+    public Color set(float r, float g, float b) {
+        this.r = r;
+        this.g = g;
+        this.b = b;
+        this.a = 1f;
+        return this;
+    }
+
+    public Color set(Color c) {
+        this.r = c.r;
+        this.g = c.g;
+        this.b = c.b;
+        this.a = c.a;
+        return this;
+    }
+
     public int getIntRed() {
         return (int)(r * 255);
     }
@@ -59,9 +75,11 @@ public class Color {
     // Raise red, green, and blue to the given power. Has a similar effect on
     // the color as you could get by increasing the concentration of pigment.
     public void power(float p) {
-        r = (float)Math.pow(r, p);
-        g = (float)Math.pow(g, p);
-        b = (float)Math.pow(b, p);
+        if (p != 1f) {
+            r = (float)Math.pow(r, p);
+            g = (float)Math.pow(g, p);
+            b = (float)Math.pow(b, p);
+        }
         clamp();
     }
 
@@ -76,8 +94,7 @@ public class Color {
 
     // Average with white
     public void addWhite(float w) {
-        Color white = new Color();
-        this.average(white, w);
+        this.average(WHITE, w);
     }
 
     // Multiply each RGBA value with the given color
@@ -1,7 +1,10 @@
 package sekelsta.horse_colors.util;
 
+import java.util.HashMap;
+import java.util.Map;
 import net.minecraft.block.CarpetBlock;
 import net.minecraft.item.BlockItem;
+import net.minecraft.item.DyeableHorseArmorItem;
 import net.minecraft.item.HorseArmorItem;
 import net.minecraft.item.ItemStack;
 import net.minecraft.item.Item;
@@ -15,8 +18,55 @@ import sekelsta.horse_colors.item.CompatibleHorseArmor;
 
 public class HorseArmorer
 {
+    // Armor is drawn every frame, so remember each item's texture and color
+    // instead of working them out again
+    @OnlyIn(Dist.CLIENT)
+    private static Map<Item, Look> looks;
+
+    @OnlyIn(Dist.CLIENT)
+    private static class Look {
+        final ResourceLocation texture;
+        final int color;
+
+        Look(ResourceLocation texture, int color) {
+            this.texture = texture;
+            this.color = color;
+        }
+    }
+
+    @OnlyIn(Dist.CLIENT)
+    private static Look getLook(Item armor) {
+        if (looks == null) {
+            looks = new HashMap<>();
+        }
+        Look look = looks.get(armor);
+        if (look == null) {
+            look = new Look(findTexture(armor), findColor(armor));
+            looks.put(armor, look);
+        }
+        return look;
+    }
+
     @OnlyIn(Dist.CLIENT)
     public static ResourceLocation getTexture(Item armor)
+    {
+        return getLook(armor).texture;
+    }
+
+    // The color to tint the armor texture, as 0xRRGGBB
+    @OnlyIn(Dist.CLIENT)
+    public static int getColor(ItemStack stack)
+    {
+        Item armor = stack.getItem();
+        // Dyed armor is the only kind that differs between stacks
+        if (armor instanceof DyeableHorseArmorItem) {
+            return ((DyeableHorseArmorItem)armor).getColor(stack);
+        }
+        return getLook(armor).color;
+    }
+
+    @OnlyIn(Dist.CLIENT)
+    private static ResourceLocation findTexture(Item armor)
     {
         if (armor instanceof CompatibleHorseArmor) {
             return ((CompatibleHorseArmor)armor).getAlternateTexture();
@@ -37,4 +87,16 @@ public class HorseArmorer
         }
         return null;
     }
+
+    @OnlyIn(Dist.CLIENT)
+    private static int findColor(Item armor)
+    {
+        if (armor instanceof BlockItem) {
+            BlockItem blockItem = (BlockItem)armor;
+            if (blockItem.getBlock() instanceof CarpetBlock) {
+                return ((CarpetBlock)(blockItem.getBlock())).getColor().getColorValue();
+            }
+        }
+        return 0xffffff;
+    }
 }
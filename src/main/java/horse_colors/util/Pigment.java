@@ -17,11 +17,34 @@ public class Pigment {
         this.white = white;
     }
 
+    public Pigment(Pigment copy) {
+        this(copy.color, copy.concentration, copy.white);
+    }
+
+    public Pigment set(Color color, float concentration, float white) {
+        this.color = color;
+        this.concentration = concentration;
+        this.white = white;
+        return this;
+    }
+
+    public Pigment set(Pigment p) {
+        this.color = p.color;
+        this.concentration = p.concentration;
+        this.white = p.white;
+        return this;
+    }
+
     // Use the pigment color and density to get the final color
     public Color toColor() {
-        Color c = new Color(color);
-        c.power(concentration);
-        c.addWhite(white);
-        return c;
+        return toColor(new Color());
+    }
+
+    // Same as toColor(), but writes the result into an existing color
+    public Color toColor(Color out) {
+        out.set(color.r, color.g, color.b);
+        out.power(concentration);
+        out.addWhite(white);
+        return out;
     }
 }
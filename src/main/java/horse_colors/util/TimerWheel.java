@@ -0,0 +1,126 @@
+package sekelsta.horse_colors.util;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Consumer;
+
+// Holds values until the tick they are due, without looking at each one
+// every tick. Each level of the wheel has 64 slots, and each slot of a level
+// covers as many ticks as the whole level below it. Values move down a level
+// as their time gets close, and go off when they reach the bottom.
+public class TimerWheel<T> {
+    private static final int BITS = 6;
+    private static final int SLOTS = 1 << BITS;
+    private static final int MASK = SLOTS - 1;
+    private static final int LEVELS = 4;
+
+    private static class Entry<T> {
+        final T value;
+        final long due;
+
+        Entry(T value, long due) {
+            this.value = value;
+            this.due = due;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private final List<Entry<T>>[][] wheel = new List[LEVELS][SLOTS];
+    // Values due after everything the wheel can hold
+    private List<Entry<T>> overflow = new ArrayList<>();
+    // Values due now or in the past, which go off on the next advance
+    private List<Entry<T>> ready = new ArrayList<>();
+    private long now;
+    private int size;
+
+    public TimerWheel(long now) {
+        this.now = now;
+    }
+
+    public long getTime() {
+        return now;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public void schedule(T value, long due) {
+        size++;
+        insert(new Entry<>(value, due));
+    }
+
+    private void insert(Entry<T> entry) {
+        long delta = entry.due - now;
+        if (delta <= 0) {
+            ready.add(entry);
+            return;
+        }
+        for (int level = 0; level < LEVELS; ++level) {
+            if (delta < 1L << (BITS * (level + 1))) {
+                int slot = (int)(entry.due >>> (BITS * level)) & MASK;
+                List<Entry<T>> list = wheel[level][slot];
+                if (list == null) {
+                    list = new ArrayList<>();
+                    wheel[level][slot] = list;
+                }
+                list.add(entry);
+                return;
+            }
+        }
+        overflow.add(entry);
+    }
+
+    // Move the wheel forward to the given tick, passing each value that
+    // comes due to fire
+    public void advance(long time, Consumer<T> fire) {
+        fireReady(fire);
+        while (now < time) {
+            now++;
+            cascade();
+            List<Entry<T>> list = wheel[0][(int)now & MASK];
+            if (list != null) {
+                wheel[0][(int)now & MASK] = null;
+                ready.addAll(list);
+            }
+            fireReady(fire);
+        }
+    }
+
+    // When a level's slots have all gone by, spread the next slot of the
+    // level above over it
+    private void cascade() {
+        for (int level = 1; level < LEVELS; ++level) {
+            if ((now & ((1L << (BITS * level)) - 1)) != 0) {
+                return;
+            }
+            int slot = (int)(now >>> (BITS * level)) & MASK;
+            List<Entry<T>> list = wheel[level][slot];
+            if (list != null) {
+                wheel[level][slot] = null;
+                for (Entry<T> entry : list) {
+                    insert(entry);
+                }
+            }
+        }
+        if ((now & ((1L << (BITS * LEVELS)) - 1)) == 0) {
+            List<Entry<T>> list = overflow;
+            overflow = new ArrayList<>();
+            for (Entry<T> entry : list) {
+                insert(entry);
+            }
+        }
+    }
+
+    private void fireReady(Consumer<T> fire) {
+        while (!ready.isEmpty()) {
+            // Firing may schedule more values
+            List<Entry<T>> list = ready;
+            ready = new ArrayList<>();
+            size -= list.size();
+            for (Entry<T> entry : list) {
+                fire.accept(entry.value);
+            }
+        }
+    }
+}
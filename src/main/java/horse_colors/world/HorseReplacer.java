@@ -7,13 +7,20 @@ import net.minecraft.entity.passive.horse.HorseEntity;
 import net.minecraft.entity.passive.horse.DonkeyEntity;
 import net.minecraft.world.World;
 import net.minecraft.world.server.ServerWorld;
+import net.minecraftforge.event.TickEvent;
 import net.minecraftforge.event.entity.EntityJoinWorldEvent;
+import net.minecraftforge.event.world.WorldEvent;
 import net.minecraftforge.eventbus.api.SubscribeEvent;
 
 import sekelsta.horse_colors.config.HorseConfig;
 import sekelsta.horse_colors.entity.*;
 
 public class HorseReplacer {
+    // Vanilla horses waiting to be converted. Converting them all as their
+    // chunks load would stall chunk loading, so only a few are done each
+    // tick and the rest stay vanilla until their turn.
+    private static final Deque<HorseEntity> QUEUE = new ArrayDeque<>();
+    private static final Set<HorseEntity> QUEUED = Collections.newSetFromMap(new WeakHashMap<>());
 
     @SubscribeEvent
 	public static void replaceHorses(EntityJoinWorldEvent event)
@@ -24,24 +31,62 @@ public class HorseReplacer {
             && HorseConfig.SPAWN.convertVanillaHorses.get())
         {
             HorseEntity horse = (HorseEntity)event.getEntity();
-            if (!horse.getPersistentData().contains("converted")) {
-                HorseGeneticEntity newHorse = ModEntities.HORSE_GENETIC.create(event.getWorld());
-                newHorse.copyAbstractHorse(horse);
-                // Spawn the new horse
-                // Normally this is done by calling world.addEntity, which
-                // makes sure to load the chunk first. However calling that
-                // from chunk loading creates a deadlock. Minecraft's chunk 
-                // loading code calls ServerWorld.loadFromChunk
-                // instead, which assumes the chunk is already loaded.
-                World world = event.getWorld();
-                if (world instanceof ServerWorld) {
-                    ((ServerWorld)world).loadFromChunk(newHorse);
-                }
-                // Don't convert the same horse twice
-                horse.getPersistentData().putBoolean("converted", true);
+            if (!horse.getPersistentData().contains("converted") && QUEUED.add(horse)) {
+                QUEUE.add(horse);
             }
-            // Cancel the event regardless
-            event.setCanceled(true);
         }
 	}
+
+    // Horses in a world that unloads would otherwise wait in the queue, and
+    // keep the world in memory, until their turn came
+    @SubscribeEvent
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        QUEUE.removeIf(horse -> horse.level == event.getWorld());
+        QUEUED.removeIf(horse -> horse.level == event.getWorld());
+    }
+
+    @SubscribeEvent
+    public static void onServerTick(TickEvent.ServerTickEvent event) {
+        if (event.phase != TickEvent.Phase.END) {
+            return;
+        }
+        int budget = HorseConfig.SPAWN.conversionsPerTick.get();
+        for (int i = QUEUE.size(); i > 0 && budget > 0; --i) {
+            HorseEntity horse = QUEUE.poll();
+            // Unloaded horses are queued again when they next load
+            if (!horse.isAlive() || !horse.isAddedToWorld()) {
+                QUEUED.remove(horse);
+                continue;
+            }
+            // Wait for riders to get off
+            if (horse.isVehicle()) {
+                QUEUE.add(horse);
+                continue;
+            }
+            QUEUED.remove(horse);
+            convert(horse);
+            budget--;
+        }
+    }
+
+    private static void convert(HorseEntity horse) {
+        World world = horse.level;
+        HorseGeneticEntity newHorse = ModEntities.HORSE_GENETIC.create(world);
+        newHorse.copyAbstractHorse(horse);
+        if (horse.getLeashHolder() != null) {
+            newHorse.setLeashedTo(horse.getLeashHolder(), true);
+            horse.dropLeash(true, false);
+        }
+        // Don't convert the same horse twice
+        horse.getPersistentData().putBoolean("converted", true);
+        Entity vehicle = horse.getVehicle();
+        // This runs between ticks rather than from chunk loading, so the
+        // usual ways of removing and adding an entity are safe. Removing the
+        // old horse first frees its UUID for the new one.
+        ((ServerWorld)world).removeEntity(horse);
+        world.addFreshEntity(newHorse);
+        if (vehicle != null) {
+            newHorse.startRiding(vehicle, true);
+        }
+    }
 }
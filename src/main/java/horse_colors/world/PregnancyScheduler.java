@@ -0,0 +1,83 @@
+package sekelsta.horse_colors.world;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+import net.minecraft.world.World;
+import net.minecraftforge.event.TickEvent;
+import net.minecraftforge.event.world.WorldEvent;
+
+import sekelsta.horse_colors.entity.AbstractHorseGenetic;
+import sekelsta.horse_colors.util.TimerWheel;
+
+// Keeps track of when each pregnant horse in a world is due, so horses do
+// not have to check every tick. Horses are added when they get pregnant and
+// again whenever they are loaded, since unloaded horses are forgotten. The
+// wheel only holds weak references, so a horse that leaves the world is not
+// kept around until it would have been due.
+public class PregnancyScheduler {
+    private static final Map<World, PregnancyScheduler> SCHEDULERS = new WeakHashMap<>();
+
+    private final TimerWheel<WeakReference<AbstractHorseGenetic>> wheel;
+    // When each horse is due. Entries in the wheel for any other time are
+    // out of date and ignored.
+    private final Map<AbstractHorseGenetic, Long> due = new WeakHashMap<>();
+
+    private PregnancyScheduler(long time) {
+        this.wheel = new TimerWheel<>(time);
+    }
+
+    public static void schedule(AbstractHorseGenetic mother) {
+        if (mother.level.isClientSide) {
+            return;
+        }
+        PregnancyScheduler scheduler = SCHEDULERS.computeIfAbsent(mother.level,
+            world -> new PregnancyScheduler(world.getGameTime()));
+        long tick = mother.level.getGameTime() + Math.max(0, mother.getPregnancyTicksLeft());
+        scheduler.due.put(mother, tick);
+        scheduler.wheel.schedule(new WeakReference<>(mother), tick);
+    }
+
+    // Called when a horse leaves the world. Once it is out of the due map
+    // its entries in the wheel are ignored.
+    public static void unschedule(AbstractHorseGenetic mother) {
+        PregnancyScheduler scheduler = SCHEDULERS.get(mother.level);
+        if (scheduler != null) {
+            scheduler.due.remove(mother);
+        }
+    }
+
+    public static void onWorldTick(TickEvent.WorldTickEvent event) {
+        if (event.phase != TickEvent.Phase.END || event.world.isClientSide) {
+            return;
+        }
+        PregnancyScheduler scheduler = SCHEDULERS.get(event.world);
+        if (scheduler != null) {
+            scheduler.wheel.advance(event.world.getGameTime(), mother -> scheduler.fire(event.world, mother));
+        }
+    }
+
+    // The scheduled horses keep their world loaded, so let go of them along
+    // with the world
+    public static void onWorldUnload(WorldEvent.Unload event) {
+        SCHEDULERS.remove(event.getWorld());
+    }
+
+    private void fire(World world, WeakReference<AbstractHorseGenetic> reference) {
+        AbstractHorseGenetic mother = reference.get();
+        if (mother == null) {
+            return;
+        }
+        Long tick = due.get(mother);
+        if (tick == null || tick > wheel.getTime()) {
+            return;
+        }
+        due.remove(mother);
+        // Horses that were unloaded are scheduled again when they load, as a
+        // new instance, so the old one must not give birth as well
+        if (!mother.isAlive() || !mother.isAddedToWorld() || mother.level != world) {
+            return;
+        }
+        mother.checkPregnancy();
+    }
+}
@@ -0,0 +1,83 @@
+package sekelsta.horse_colors.client.renderer;
+
+import static org.junit.Assert.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import org.junit.Test;
+
+// AtlasPacker only does bookkeeping, so it can be checked without a game
+public class AtlasPackerTest {
+    private static final int PAGE_SIZE = 512;
+    private static final int PAGES = 2;
+
+    // Places and evicts many textures of mixed sizes, checking that placed
+    // textures stay on their page and never overlap
+    @Test
+    public void slotsStayInBoundsAndDoNotOverlap() {
+        Random rand = new Random(1);
+        AtlasPacker<Integer> packer = new AtlasPacker<>(PAGE_SIZE, PAGES, 1);
+        List<Integer> evicted = new ArrayList<>();
+        for (int i = 0; i < 2000; ++i) {
+            // Mostly the usual sizes, with some larger ones from HD packs
+            int size = rand.nextInt(8) == 0 ? 128 : 64;
+            evicted.clear();
+            assertNotNull("No room for texture " + i, packer.insert(i, size, size, evicted));
+            for (Integer key : evicted) {
+                assertFalse("Evicted texture " + key + " is still placed", packer.contains(key));
+            }
+            List<AtlasPacker.Slot> placed = new ArrayList<>();
+            for (AtlasPacker.Slot s : packer.allSlots()) {
+                assertTrue("Slot outside its page: " + s, s.x >= 0 && s.y >= 0
+                    && s.x + s.width <= PAGE_SIZE && s.y + s.height <= PAGE_SIZE && s.page < PAGES);
+                for (AtlasPacker.Slot other : placed) {
+                    assertFalse(s + " overlaps " + other, s.overlaps(other));
+                }
+                placed.add(s);
+            }
+        }
+    }
+
+    @Test
+    public void rejectsTexturesLargerThanAPage() {
+        AtlasPacker<Integer> packer = new AtlasPacker<>(PAGE_SIZE, PAGES, 1);
+        assertNull(packer.insert(0, 600, 64, new ArrayList<>()));
+        // The padding counts too
+        assertNull(packer.insert(1, PAGE_SIZE, 64, new ArrayList<>()));
+        assertEquals(0, packer.size());
+    }
+
+    // When full, the texture used longest ago makes room, and looking one up
+    // counts as using it
+    @Test
+    public void evictsLeastRecentlyUsed() {
+        // Room for exactly four 64 pixel textures with their padding
+        AtlasPacker<Integer> packer = new AtlasPacker<>(2 * 65, 1, 1);
+        List<Integer> evicted = new ArrayList<>();
+        for (int i = 0; i < 4; ++i) {
+            assertNotNull(packer.insert(i, 64, 64, evicted));
+        }
+        assertTrue(evicted.isEmpty());
+        packer.get(0);
+        assertNotNull(packer.insert(4, 64, 64, evicted));
+        assertEquals(1, evicted.size());
+        assertEquals(Integer.valueOf(1), evicted.get(0));
+        assertTrue(packer.contains(0));
+        assertFalse(packer.contains(1));
+        assertEquals(4, packer.size());
+    }
+
+    // Removing a texture frees its space for the next one
+    @Test
+    public void removeFreesSpace() {
+        AtlasPacker<Integer> packer = new AtlasPacker<>(65, 1, 1);
+        List<Integer> evicted = new ArrayList<>();
+        AtlasPacker.Slot first = packer.insert(0, 64, 64, evicted);
+        packer.remove(0);
+        AtlasPacker.Slot second = packer.insert(1, 64, 64, evicted);
+        assertTrue(evicted.isEmpty());
+        assertEquals(first.x, second.x);
+        assertEquals(first.y, second.y);
+    }
+}
@@ -0,0 +1,62 @@
+package sekelsta.horse_colors.tools;
+
+import java.util.Arrays;
+import java.util.List;
+
+import sekelsta.horse_colors.client.renderer.TextureLayer;
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+
+// One small texture per blend mode, built from the real layer pngs, so that
+// changes to the compositor can be checked mode by mode
+public class BlendCase {
+    private static final String PATH = "horse_colors:textures/entity/horse/";
+
+    public final String name;
+    public final TextureLayer base;
+    public final TextureLayer overlay;
+
+    private BlendCase(String name, TextureLayer base, TextureLayer overlay) {
+        this.name = name;
+        this.base = base;
+        this.overlay = overlay;
+    }
+
+    public TextureLayerGroup build() {
+        TextureLayerGroup group = new TextureLayerGroup();
+        group.add(base);
+        group.add(overlay);
+        return group;
+    }
+
+    public static List<BlendCase> all() {
+        return Arrays.asList(
+            new BlendCase("normal", brownBase(), 
+                layer("manetail", TextureLayer.Type.NORMAL, 0.1f, 0.08f, 0.06f, 1f)),
+            new BlendCase("no_alpha", brownBase(), 
+                layer("freckles", TextureLayer.Type.NO_ALPHA, 0.3f, 0.2f, 0.2f, 1f)),
+            new BlendCase("mask", layer("leopard/blanket4", TextureLayer.Type.NORMAL, 1f, 1f, 1f, 1f), 
+                layer("leopard/leopard", TextureLayer.Type.MASK, 1f, 1f, 1f, 1f)),
+            new BlendCase("shade", brownBase(), 
+                layer("shading", TextureLayer.Type.SHADE, 1f, 1f, 1f, 0.5f)),
+            new BlendCase("highlight", brownBase(), 
+                layer("base", TextureLayer.Type.HIGHLIGHT, 1f, 1f, 1f, 0.2f)),
+            new BlendCase("power", brownBase(), 
+                layer("dun/dun_dilute", TextureLayer.Type.POWER, 0.9f, 0.9f, 0.9f, 1f)),
+            new BlendCase("root", brownBase(), 
+                layer("dun/dun_dilute", TextureLayer.Type.ROOT, 0.6f, 0.6f, 0.6f, 1f))
+        );
+    }
+
+    private static TextureLayer brownBase() {
+        return layer("base", TextureLayer.Type.NORMAL, 0.62f, 0.38f, 0.2f, 1f);
+    }
+
+    private static TextureLayer layer(String name, TextureLayer.Type type, float r, float g, float b, float a) {
+        TextureLayer layer = new TextureLayer();
+        layer.name = PATH + name + ".png";
+        layer.type = type;
+        layer.color.set(r, g, b);
+        layer.color.a = a;
+        return layer;
+    }
+}
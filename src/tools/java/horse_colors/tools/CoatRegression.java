@@ -0,0 +1,190 @@
+package sekelsta.horse_colors.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import sekelsta.horse_colors.client.renderer.ArrayLayerImage;
+import sekelsta.horse_colors.client.renderer.LayerImage;
+import sekelsta.horse_colors.client.renderer.TextureLayer;
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+import sekelsta.horse_colors.entity.genetics.HorseColorCalculator;
+
+// Compares composited textures against golden images, so that changes to the
+// compositor can be checked for changing coat colors. Also times each blend
+// mode in nanoseconds per pixel.
+// Options:
+//  --golden DIR     where the golden images are kept (default golden)
+//  --update         overwrite the golden images instead of comparing
+//  --tolerance N    allowed difference per color channel (default 2)
+//  --count N        number of random horses to check (default 50)
+//  --seed N         seed for the random horses (default 1)
+//  --skip-coats     only check the blend modes
+//  --iterations N   timing repetitions per blend mode (default 200)
+//  --assets DIR, --breeds DIR  as for CoatRenderer
+// Exits with status 1 if any image differs by more than the tolerance.
+public class CoatRegression {
+    private static final File FAILURE_DIR = new File("build/coat_regression");
+
+    private final File goldenDir;
+    private final boolean update;
+    private final int tolerance;
+    private int failures = 0;
+
+    public CoatRegression(File goldenDir, boolean update, int tolerance) {
+        this.goldenDir = goldenDir;
+        this.update = update;
+        this.tolerance = tolerance;
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HeadlessSetup.parseArgs(args);
+        CoatRegression regression = new CoatRegression(
+            new File(options.getOrDefault("golden", "golden")),
+            options.containsKey("update"),
+            Integer.parseInt(options.getOrDefault("tolerance", "2")));
+        FileLayerLoader loader = new FileLayerLoader(HeadlessSetup.projectFile(options.getOrDefault("assets", HeadlessSetup.ASSET_DIR)));
+
+        regression.checkBlendModes(loader);
+        timeBlendModes(loader, Integer.parseInt(options.getOrDefault("iterations", "200")));
+        if (!options.containsKey("skip-coats")) {
+            HeadlessSetup.loadDefaultConfig();
+            HeadlessSetup.loadBreeds(HeadlessSetup.projectFile(options.getOrDefault("breeds", HeadlessSetup.BREED_DIR)));
+            regression.checkCoats(loader, 
+                Integer.parseInt(options.getOrDefault("count", "50")),
+                Long.parseLong(options.getOrDefault("seed", "1")));
+        }
+
+        if (regression.failures > 0) {
+            System.out.println(regression.failures + " images differ from the golden images. "
+                + "The new versions were written to " + FAILURE_DIR.getPath());
+            System.exit(1);
+        }
+        System.out.println(regression.update ? "Golden images updated" : "All images match");
+    }
+
+    public void checkBlendModes(FileLayerLoader loader) throws IOException {
+        for (BlendCase blend : BlendCase.all()) {
+            check("blend/" + blend.name + ".png", blend.build().getLayer(loader));
+        }
+    }
+
+    // Horses are generated from a fixed seed, and the list of texture names
+    // is also kept so that it is clear whether a difference came from the
+    // genetics or from the compositing
+    public void checkCoats(FileLayerLoader loader, int count, long seed) throws IOException {
+        List<EquineGenome> genomes = CoatRenderer.randomGenomes(count, seed, null, -1);
+        List<String> names = new ArrayList<>();
+        for (int i = 0; i < genomes.size(); ++i) {
+            TextureLayerGroup plan = HorseColorCalculator.getTexturePaths(genomes.get(i));
+            names.add(plan.getUniqueName());
+            check(String.format("coats/coat_%03d.png", i), plan.getLayer(loader));
+        }
+        File nameFile = new File(goldenDir, "coats/names.txt");
+        if (update) {
+            Files.write(nameFile.toPath(), names, StandardCharsets.UTF_8);
+        }
+        else if (nameFile.exists()) {
+            List<String> expected = Files.readAllLines(nameFile.toPath(), StandardCharsets.UTF_8);
+            for (int i = 0; i < Math.min(expected.size(), names.size()); ++i) {
+                if (!expected.get(i).equals(names.get(i))) {
+                    System.out.println("Coat " + i + " has different layers than before:\n  was " 
+                        + expected.get(i) + "\n  now " + names.get(i));
+                }
+            }
+        }
+    }
+
+    private void check(String name, LayerImage actual) throws IOException {
+        File golden = new File(goldenDir, name);
+        if (actual == null) {
+            System.out.println("Could not composite " + name);
+            failures++;
+            return;
+        }
+        if (update) {
+            golden.getParentFile().mkdirs();
+            FileLayerLoader.writePng(actual, golden);
+            return;
+        }
+        if (!golden.exists()) {
+            System.out.println("Missing golden image " + golden.getPath() + ", run with --update to create it");
+            failures++;
+            return;
+        }
+        ArrayLayerImage expected = FileLayerLoader.readPng(golden);
+        String difference = compare(expected, actual, tolerance);
+        if (difference != null) {
+            System.out.println(name + ": " + difference);
+            File out = new File(FAILURE_DIR, name);
+            out.getParentFile().mkdirs();
+            FileLayerLoader.writePng(actual, out);
+            failures++;
+        }
+    }
+
+    // Returns null if the images match within the tolerance, or a description
+    // of how they differ
+    public static String compare(LayerImage expected, LayerImage actual, int tolerance) {
+        if (expected.getWidth() != actual.getWidth() || expected.getHeight() != actual.getHeight()) {
+            return "expected size " + expected.getWidth() + "x" + expected.getHeight() 
+                + " but got " + actual.getWidth() + "x" + actual.getHeight();
+        }
+        int wrong = 0;
+        int maxDiff = 0;
+        for (int y = 0; y < expected.getHeight(); ++y) {
+            for (int x = 0; x < expected.getWidth(); ++x) {
+                int e = expected.getPixelRGBA(x, y);
+                int a = actual.getPixelRGBA(x, y);
+                int diff = channelDiff(e, a, 24);
+                // Color does not matter where the pixel is fully transparent
+                if (LayerImage.getA(e) != 0 || LayerImage.getA(a) != 0) {
+                    diff = Math.max(diff, Math.max(channelDiff(e, a, 16), 
+                        Math.max(channelDiff(e, a, 8), channelDiff(e, a, 0))));
+                }
+                if (diff > tolerance) {
+                    wrong++;
+                }
+                maxDiff = Math.max(maxDiff, diff);
+            }
+        }
+        if (wrong == 0) {
+            return null;
+        }
+        return wrong + " pixels differ by more than " + tolerance + " (largest difference " + maxDiff + ")";
+    }
+
+    private static int channelDiff(int c1, int c2, int shift) {
+        return Math.abs((c1 >> shift & 255) - (c2 >> shift & 255));
+    }
+
+    public static void timeBlendModes(FileLayerLoader loader, int iterations) throws IOException {
+        System.out.println("Blend mode timings:");
+        for (BlendCase blend : BlendCase.all()) {
+            ArrayLayerImage base = (ArrayLayerImage)blend.base.getLayer(loader);
+            blend.base.colorLayer(base);
+            ArrayLayerImage overlay = (ArrayLayerImage)blend.overlay.getLayer(loader);
+            ArrayLayerImage work = new ArrayLayerImage(base);
+            int pixels = overlay.getWidth() * overlay.getHeight();
+            // Warm up before timing
+            for (int i = 0; i < iterations; ++i) {
+                System.arraycopy(base.pixels, 0, work.pixels, 0, base.pixels.length);
+                blend.overlay.combineLayers(work, overlay);
+            }
+            long total = 0;
+            for (int i = 0; i < iterations; ++i) {
+                System.arraycopy(base.pixels, 0, work.pixels, 0, base.pixels.length);
+                long start = System.nanoTime();
+                blend.overlay.combineLayers(work, overlay);
+                total += System.nanoTime() - start;
+            }
+            System.out.println(String.format("  %-10s %6.2f ns/pixel", blend.name, 
+                total / (double)iterations / pixels));
+        }
+    }
+}
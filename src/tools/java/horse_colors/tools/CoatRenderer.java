@@ -0,0 +1,143 @@
+package sekelsta.horse_colors.tools;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import sekelsta.horse_colors.breed.Breed;
+import sekelsta.horse_colors.breed.horse.DefaultHorse;
+import sekelsta.horse_colors.client.renderer.LayerImage;
+import sekelsta.horse_colors.client.renderer.TextureLayerGroup;
+import sekelsta.horse_colors.config.HorseConfig;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+import sekelsta.horse_colors.entity.genetics.FakeGeneticEntity;
+import sekelsta.horse_colors.entity.genetics.HorseColorCalculator;
+import sekelsta.horse_colors.entity.genetics.Species;
+
+// Renders the coats of random horses to png files without starting the game,
+// and reports how fast the textures were composited.
+// Options:
+//  --count N       number of horses to generate (default 100)
+//  --seed N        random seed, so runs can be repeated (default 0)
+//  --breed NAME    only generate this breed (default: all, by population)
+//  --age TICKS     display age for every horse (default: random)
+//  --threads N     compositing threads (default: number of processors)
+//  --out DIR       where to write the pngs (default build/coats)
+//  --no-write      composite only, for timing
+//  --breeds DIR    breed jsons (default src/main/resources/data/horse_colors/breeds)
+//  --assets DIR    assets directory (default src/main/resources/assets)
+public class CoatRenderer {
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HeadlessSetup.parseArgs(args);
+        int count = Integer.parseInt(options.getOrDefault("count", "100"));
+        long seed = Long.parseLong(options.getOrDefault("seed", "0"));
+        int threads = Integer.parseInt(options.getOrDefault("threads", 
+            Integer.toString(Runtime.getRuntime().availableProcessors())));
+        String age = options.get("age");
+        File out = new File(options.getOrDefault("out", "build/coats"));
+        boolean write = !options.containsKey("no-write");
+
+        HeadlessSetup.loadDefaultConfig();
+        HeadlessSetup.loadBreeds(HeadlessSetup.projectFile(options.getOrDefault("breeds", HeadlessSetup.BREED_DIR)));
+        FileLayerLoader loader = new FileLayerLoader(HeadlessSetup.projectFile(options.getOrDefault("assets", HeadlessSetup.ASSET_DIR)));
+
+        long start = System.nanoTime();
+        List<EquineGenome> genomes = randomGenomes(count, seed, options.get("breed"), 
+            age == null ? -1 : Integer.parseInt(age));
+        long generated = System.nanoTime();
+
+        // Horses that look the same share a texture, just like in game
+        Map<String, TextureLayerGroup> plans = new LinkedHashMap<>();
+        List<String> names = new ArrayList<>();
+        for (EquineGenome genome : genomes) {
+            TextureLayerGroup plan = HorseColorCalculator.getTexturePaths(genome);
+            String name = "cache_" + plan.getUniqueName();
+            names.add(name);
+            plans.putIfAbsent(name, plan);
+        }
+        long planned = System.nanoTime();
+
+        List<String> unique = new ArrayList<>(plans.keySet());
+        LayerImage[] images = new LayerImage[unique.size()];
+        ForkJoinPool pool = new ForkJoinPool(threads);
+        pool.submit(() -> IntStream.range(0, images.length).parallel().forEach((i) -> {
+            images[i] = plans.get(unique.get(i)).getLayer(loader);
+        })).get();
+        long composited = System.nanoTime();
+
+        if (write) {
+            writeOutput(out, genomes, names, unique, images);
+        }
+        long written = System.nanoTime();
+        pool.shutdown();
+
+        double compositeSeconds = (composited - planned) / 1e9;
+        System.out.println(String.format("Generated %d genomes in %.1f ms", 
+            count, (generated - start) / 1e6));
+        System.out.println(String.format("Built %d layer plans in %.1f ms", 
+            count, (planned - generated) / 1e6));
+        System.out.println(String.format("Composited %d unique textures on %d threads in %.1f ms (%.1f composites/sec)", 
+            unique.size(), threads, compositeSeconds * 1e3, unique.size() / compositeSeconds));
+        System.out.println(String.format("Texture cache: %d of %d horses reused another horse's texture", 
+            count - unique.size(), count));
+        System.out.println(String.format("Layer cache: %d pngs decoded, %d hits, %d misses", 
+            loader.size(), loader.getHits(), loader.getMisses()));
+        if (write) {
+            System.out.println(String.format("Wrote output to %s in %.1f ms", 
+                out.getPath(), (written - composited) / 1e6));
+        }
+    }
+
+    // age < 0 means choose a random age for each horse
+    public static List<EquineGenome> randomGenomes(int count, long seed, String breedName, int age) {
+        Random rand = new Random(seed);
+        List<Breed> breeds = HeadlessSetup.horseBreeds();
+        List<EquineGenome> genomes = new ArrayList<>();
+        for (int i = 0; i < count; ++i) {
+            FakeGeneticEntity entity = new FakeGeneticEntity();
+            entity.setRand(new Random(rand.nextLong()));
+            entity.setDefaultBreed(DefaultHorse.breed);
+            EquineGenome genome = new EquineGenome(Species.HORSE, entity);
+            genome.randomize(HeadlessSetup.chooseBreed(breeds, breedName, rand));
+            entity.setDisplayAge(age >= 0 ? age : rand.nextInt(HorseConfig.GROWTH.getMaxAge()));
+            genomes.add(genome);
+        }
+        return genomes;
+    }
+
+    private static void writeOutput(File out, List<EquineGenome> genomes, List<String> names, 
+            List<String> unique, LayerImage[] images) throws IOException {
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Could not create " + out);
+        }
+        for (int i = 0; i < unique.size(); ++i) {
+            if (images[i] != null) {
+                FileLayerLoader.writePng(images[i], new File(out, fileName(i)));
+            }
+        }
+        // Record which horse got which picture, for comparing runs
+        try (PrintWriter writer = new PrintWriter(new File(out, "index.csv"), "UTF-8")) {
+            writer.println("horse,image,genes");
+            Map<String, Integer> index = new HashMap<>();
+            for (int i = 0; i < unique.size(); ++i) {
+                index.put(unique.get(i), i);
+            }
+            for (int i = 0; i < genomes.size(); ++i) {
+                writer.println(i + "," + fileName(index.get(names.get(i))) 
+                    + "," + genomes.get(i).genesToString());
+            }
+        }
+    }
+
+    private static String fileName(int i) {
+        return String.format("coat_%05d.png", i);
+    }
+}
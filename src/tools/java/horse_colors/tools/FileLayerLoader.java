@@ -0,0 +1,96 @@
+package sekelsta.horse_colors.tools;
+
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.imageio.ImageIO;
+
+import sekelsta.horse_colors.client.renderer.ArrayLayerImage;
+import sekelsta.horse_colors.client.renderer.LayerImage;
+import sekelsta.horse_colors.client.renderer.LayerLoader;
+
+// Loads texture layers from an assets directory on disk. Each png is only
+// decoded once, and callers get their own copy to draw on.
+public class FileLayerLoader implements LayerLoader {
+    private final File root;
+    private final Map<String, ArrayLayerImage> cache = new ConcurrentHashMap<>();
+    private final AtomicLong hits = new AtomicLong();
+    private final AtomicLong misses = new AtomicLong();
+
+    public FileLayerLoader(File assetDir) {
+        this.root = assetDir;
+    }
+
+    @Override
+    public LayerImage load(String name) throws IOException {
+        ArrayLayerImage image = cache.get(name);
+        if (image == null) {
+            misses.incrementAndGet();
+            image = readPng(getFile(name));
+            // If another thread got here first, use its copy
+            ArrayLayerImage existing = cache.putIfAbsent(name, image);
+            if (existing != null) {
+                image = existing;
+            }
+        }
+        else {
+            hits.incrementAndGet();
+        }
+        return new ArrayLayerImage(image);
+    }
+
+    // Turn namespace:path into assets/namespace/path
+    private File getFile(String name) {
+        int i = name.indexOf(':');
+        String namespace = i < 0 ? "minecraft" : name.substring(0, i);
+        return new File(new File(root, namespace), name.substring(i + 1));
+    }
+
+    public long getHits() {
+        return hits.get();
+    }
+
+    public long getMisses() {
+        return misses.get();
+    }
+
+    public int size() {
+        return cache.size();
+    }
+
+    public static ArrayLayerImage readPng(File file) throws IOException {
+        BufferedImage image = ImageIO.read(file);
+        if (image == null) {
+            throw new IOException("Could not read image " + file);
+        }
+        int width = image.getWidth();
+        int height = image.getHeight();
+        int[] pixels = image.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < pixels.length; ++i) {
+            pixels[i] = swapRedBlue(pixels[i]);
+        }
+        return new ArrayLayerImage(width, height, pixels);
+    }
+
+    public static void writePng(LayerImage image, File file) throws IOException {
+        int width = image.getWidth();
+        int height = image.getHeight();
+        BufferedImage out = new BufferedImage(width, height, BufferedImage.TYPE_INT_ARGB);
+        for (int y = 0; y < height; ++y) {
+            for (int x = 0; x < width; ++x) {
+                out.setRGB(x, y, swapRedBlue(image.getPixelRGBA(x, y)));
+            }
+        }
+        if (!ImageIO.write(out, "png", file)) {
+            throw new IOException("No png writer available");
+        }
+    }
+
+    // Convert between AWT's ARGB and the ABGR order LayerImage uses
+    private static int swapRedBlue(int color) {
+        return (color & 0xff00ff00) | (color >> 16 & 0xff) | (color & 0xff) << 16;
+    }
+}
@@ -0,0 +1,107 @@
+package sekelsta.horse_colors.tools;
+
+import com.electronwill.nightconfig.core.CommentedConfig;
+import com.google.common.collect.ImmutableList;
+import com.google.gson.JsonElement;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import net.minecraft.util.ResourceLocation;
+
+import sekelsta.horse_colors.HorseColors;
+import sekelsta.horse_colors.breed.Breed;
+import sekelsta.horse_colors.breed.BreedManager;
+import sekelsta.horse_colors.breed.horse.*;
+import sekelsta.horse_colors.config.HorseConfig;
+
+// Prepares the parts of the mod the genetics code needs, without starting the game
+public class HeadlessSetup {
+    public static final String BREED_DIR = "src/main/resources/data/horse_colors/breeds";
+    public static final String ASSET_DIR = "src/main/resources/assets";
+
+    // Paths are relative to the project directory, which can be given with
+    // -Dhorse_colors.projectDir when running from somewhere else
+    public static File projectFile(String path) {
+        String root = System.getProperty("horse_colors.projectDir");
+        return root == null ? new File(path) : new File(root, path);
+    }
+
+    // Use the default value for every config option
+    public static void loadDefaultConfig() {
+        HorseConfig.spec.setConfig(CommentedConfig.inMemory());
+    }
+
+    // Read every breed json in the directory, the same way a data pack would
+    // be read. Must be called before any breed class is used.
+    public static void loadBreeds(File dir) throws IOException {
+        File[] files = dir.listFiles((d, name) -> name.endsWith(".json"));
+        if (files == null) {
+            throw new IOException("Not a directory: " + dir);
+        }
+        Map<ResourceLocation, JsonElement> map = new HashMap<>();
+        for (File file : files) {
+            String name = file.getName();
+            name = name.substring(0, name.length() - ".json".length());
+            try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+                map.put(new ResourceLocation(HorseColors.MODID, name), new JsonParser().parse(reader));
+            }
+        }
+        BreedManager.load(map);
+    }
+
+    // The same breeds wild horses spawn as
+    public static List<Breed> horseBreeds() {
+        return ImmutableList.of(Appaloosa.breed, Hucul.breed, 
+            MongolianHorse.breed, QuarterHorse.breed, Friesian.breed, 
+            ClevelandBay.breed);
+    }
+
+    // Choose from the breeds by name, or by population if name is null
+    public static Breed chooseBreed(List<Breed> breeds, String name, Random rand) {
+        if (name != null) {
+            for (Breed breed : breeds) {
+                if (name.equals(breed.name)) {
+                    return breed;
+                }
+            }
+            throw new IllegalArgumentException("Unknown breed: " + name);
+        }
+        int total = 0;
+        for (Breed breed : breeds) {
+            total += breed.population;
+        }
+        int r = rand.nextInt(Math.max(1, total));
+        for (Breed breed : breeds) {
+            r -= breed.population;
+            if (r < 0) {
+                return breed;
+            }
+        }
+        return DefaultHorse.breed;
+    }
+
+    // Parse arguments of the form --name value into a map
+    public static Map<String, String> parseArgs(String[] args) {
+        Map<String, String> map = new HashMap<>();
+        for (int i = 0; i < args.length; ++i) {
+            if (!args[i].startsWith("--")) {
+                throw new IllegalArgumentException("Unexpected argument: " + args[i]);
+            }
+            String key = args[i].substring(2);
+            if (i + 1 < args.length && !args[i + 1].startsWith("--")) {
+                map.put(key, args[++i]);
+            }
+            else {
+                map.put(key, "true");
+            }
+        }
+        return map;
+    }
+}
@@ -0,0 +1,311 @@
+package sekelsta.horse_colors.tools;
+
+import com.google.gson.JsonObject;
+import com.google.gson.JsonParser;
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import sekelsta.horse_colors.breed.Breed;
+import sekelsta.horse_colors.breed.BreedManager;
+import sekelsta.horse_colors.breed.horse.DefaultHorse;
+import sekelsta.horse_colors.entity.genetics.EquineGenome;
+import sekelsta.horse_colors.entity.genetics.FakeGeneticEntity;
+import sekelsta.horse_colors.entity.genetics.Species;
+
+// Breeds many generations of horses using the same inheritance and size code
+// as the game, and writes allele frequencies and the size distribution of
+// each generation as it goes. Sizes are adult sizes, which like in the game
+// depend on the mother's size as well as the genes.
+// Options:
+//  --population N    horses per generation (default 100000)
+//  --generations N   number of generations to breed (default 20)
+//  --seed N          random seed (default 0). Results do not depend on --threads.
+//  --threads N       worker threads (default: number of processors)
+//  --breed NAME      starting breed (default: all, by population)
+//  --breed-json FILE start from a breed json instead, with the default horse
+//                    as parent for any genes it does not list
+//  --selection MODE  which horses may breed: random, largest, smallest (default random)
+//  --keep F          fraction of each sex kept by largest/smallest (default 0.5)
+//  --mating MODE     random, or assortative to pair horses of similar size (default random)
+//  --out DIR         output directory for alleles.csv and sizes.csv (default build/simulation)
+//  --breeds DIR      breed jsons (default src/main/resources/data/horse_colors/breeds)
+public class PopulationSimulator {
+    // Work is split into chunks of this many horses, each with its own
+    // random seed, so results are the same for any number of threads
+    private static final int CHUNK = 4096;
+    // Larger than any allele value
+    private static final int MAX_ALLELES = 64;
+
+    private final int populationSize;
+    private final long seed;
+    private final String selection;
+    private final float keep;
+    private final String mating;
+    private final ForkJoinPool pool;
+    private final List<Enum> genes = new EquineGenome(Species.HORSE).listGenes();
+
+    // The current generation
+    private String[] population;
+    private boolean[] male;
+    // Adult scale of each horse
+    private float[] size;
+
+    public PopulationSimulator(int populationSize, long seed, String selection, float keep,
+            String mating, int threads) {
+        this.populationSize = populationSize;
+        this.seed = seed;
+        this.selection = selection;
+        this.keep = keep;
+        this.mating = mating;
+        this.pool = new ForkJoinPool(threads);
+    }
+
+    public static void main(String[] args) throws Exception {
+        Map<String, String> options = HeadlessSetup.parseArgs(args);
+        int population = Integer.parseInt(options.getOrDefault("population", "100000"));
+        int generations = Integer.parseInt(options.getOrDefault("generations", "20"));
+        int threads = Integer.parseInt(options.getOrDefault("threads",
+            Integer.toString(Runtime.getRuntime().availableProcessors())));
+        File out = new File(options.getOrDefault("out", "build/simulation"));
+
+        HeadlessSetup.loadDefaultConfig();
+        HeadlessSetup.loadBreeds(HeadlessSetup.projectFile(options.getOrDefault("breeds", HeadlessSetup.BREED_DIR)));
+        List<Breed> breeds = HeadlessSetup.horseBreeds();
+        if (options.containsKey("breed-json")) {
+            breeds = Arrays.asList(readBreed(new File(options.get("breed-json"))));
+        }
+        else if (options.containsKey("breed")) {
+            breeds = Arrays.asList(HeadlessSetup.chooseBreed(breeds, options.get("breed"), null));
+        }
+
+        PopulationSimulator simulator = new PopulationSimulator(population,
+            Long.parseLong(options.getOrDefault("seed", "0")),
+            options.getOrDefault("selection", "random"),
+            Float.parseFloat(options.getOrDefault("keep", "0.5")),
+            options.getOrDefault("mating", "random"),
+            threads);
+
+        if (!out.isDirectory() && !out.mkdirs()) {
+            throw new IOException("Could not create " + out);
+        }
+        try (PrintWriter alleles = new PrintWriter(new File(out, "alleles.csv"), "UTF-8");
+                PrintWriter sizes = new PrintWriter(new File(out, "sizes.csv"), "UTF-8")) {
+            alleles.println("generation,gene,allele,frequency");
+            sizes.println("generation,mean,stddev,min,p5,p25,median,p75,p95,max");
+            long start = System.nanoTime();
+            simulator.populate(breeds);
+            simulator.report(0, alleles, sizes);
+            for (int g = 1; g <= generations; ++g) {
+                simulator.breed(g);
+                simulator.report(g, alleles, sizes);
+                System.out.println(String.format("Generation %d done, %.1f s elapsed",
+                    g, (System.nanoTime() - start) / 1e9));
+            }
+            double seconds = (System.nanoTime() - start) / 1e9;
+            System.out.println(String.format("Bred %d horses in %.1f s (%.0f horses/sec)",
+                (long)population * generations, seconds, population * (double)generations / seconds));
+        }
+        simulator.pool.shutdown();
+    }
+
+    private static Breed readBreed(File file) throws IOException {
+        try (Reader reader = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            JsonObject json = new JsonParser().parse(reader).getAsJsonObject();
+            Breed breed = BreedManager.deserializeBreed(json);
+            breed.name = file.getName();
+            breed.population = 1;
+            breed.parent = DefaultHorse.breed;
+            return breed;
+        }
+    }
+
+    // Reusable objects for one worker, so breeding a horse does not allocate
+    // anything except its gene string
+    private static class Worker {
+        final FakeGeneticEntity entity = new FakeGeneticEntity();
+        final FakeGeneticEntity mother = new FakeGeneticEntity();
+        final FakeGeneticEntity father = new FakeGeneticEntity();
+        final EquineGenome genome = new EquineGenome(Species.HORSE, entity);
+        final EquineGenome motherGenome = new EquineGenome(Species.HORSE, mother);
+        final EquineGenome fatherGenome = new EquineGenome(Species.HORSE, father);
+
+        Worker(Random rand) {
+            entity.setRand(rand);
+            entity.setDefaultBreed(DefaultHorse.breed);
+        }
+    }
+
+    private Random chunkRandom(int generation, int chunk) {
+        return new Random(seed * 31 * 31 + generation * 31 + chunk);
+    }
+
+    private void forEachChunk(ChunkTask task) {
+        int chunks = (populationSize + CHUNK - 1) / CHUNK;
+        pool.submit(() -> IntStream.range(0, chunks).parallel().forEach(task::run)).join();
+    }
+
+    private interface ChunkTask {
+        void run(int chunk);
+    }
+
+    public void populate(List<Breed> breeds) {
+        population = new String[populationSize];
+        male = new boolean[populationSize];
+        size = new float[populationSize];
+        forEachChunk((chunk) -> {
+            Random rand = chunkRandom(0, chunk);
+            Worker worker = new Worker(rand);
+            for (int i = chunk * CHUNK; i < Math.min(populationSize, (chunk + 1) * CHUNK); ++i) {
+                worker.genome.randomize(HeadlessSetup.chooseBreed(breeds, null, rand));
+                // Like spawned horses, assume the mother was the same size
+                worker.entity.setMotherSize(worker.genome.getGeneticScale());
+                store(worker, i, population, male, size);
+            }
+        });
+    }
+
+    private static void store(Worker worker, int i, String[] population, boolean[] male, float[] size) {
+        population[i] = worker.entity.getGeneData();
+        male[i] = worker.entity.isMale();
+        size[i] = worker.genome.getAdultScale();
+    }
+
+    public void breed(int generation) {
+        int[] mares = select(false);
+        int[] stallions = select(true);
+        if (mares.length == 0 || stallions.length == 0) {
+            throw new IllegalStateException("Generation " + generation + " has no horses of one sex to breed");
+        }
+        boolean assortative = "assortative".equals(mating);
+        if (assortative) {
+            sortBySize(mares);
+            sortBySize(stallions);
+        }
+        String[] nextPopulation = new String[populationSize];
+        boolean[] nextMale = new boolean[populationSize];
+        float[] nextSize = new float[populationSize];
+        forEachChunk((chunk) -> {
+            Random rand = chunkRandom(generation, chunk);
+            Worker worker = new Worker(rand);
+            for (int i = chunk * CHUNK; i < Math.min(populationSize, (chunk + 1) * CHUNK); ++i) {
+                int m = rand.nextInt(mares.length);
+                int mother = mares[m];
+                int father;
+                if (assortative) {
+                    // Pair with a stallion of about the same rank in size
+                    int rank = (int)((long)m * stallions.length / mares.length);
+                    father = stallions[rank];
+                }
+                else {
+                    father = stallions[rand.nextInt(stallions.length)];
+                }
+                worker.mother.setGeneData(population[mother]);
+                worker.father.setGeneData(population[father]);
+                worker.genome.inheritGenes(worker.motherGenome, worker.fatherGenome);
+                worker.entity.setMale(rand.nextBoolean());
+                worker.entity.setSeed(rand.nextInt());
+                worker.entity.setMotherSize(size[mother]);
+                store(worker, i, nextPopulation, nextMale, nextSize);
+            }
+        });
+        population = nextPopulation;
+        male = nextMale;
+        size = nextSize;
+    }
+
+    // Indices of the horses of one sex that are allowed to breed
+    private int[] select(boolean isMale) {
+        int[] horses = IntStream.range(0, populationSize).filter(i -> male[i] == isMale).toArray();
+        if ("random".equals(selection)) {
+            return horses;
+        }
+        sortBySize(horses);
+        int count = Math.max(1, (int)(horses.length * keep));
+        count = Math.min(count, horses.length);
+        if ("largest".equals(selection)) {
+            return Arrays.copyOfRange(horses, horses.length - count, horses.length);
+        }
+        else if ("smallest".equals(selection)) {
+            return Arrays.copyOfRange(horses, 0, count);
+        }
+        throw new IllegalArgumentException("Unknown selection: " + selection);
+    }
+
+    // Sort horse indices from smallest to largest
+    private void sortBySize(int[] horses) {
+        long[] keys = new long[horses.length];
+        for (int i = 0; i < horses.length; ++i) {
+            // Sizes are positive, so their bits sort in the same order
+            keys[i] = (long)Float.floatToIntBits(size[horses[i]]) << 32 | horses[i];
+        }
+        Arrays.parallelSort(keys);
+        for (int i = 0; i < horses.length; ++i) {
+            horses[i] = (int)keys[i];
+        }
+    }
+
+    private void report(int generation, PrintWriter alleles, PrintWriter sizes) {
+        long[][] counts = pool.submit(() -> IntStream.range(0, populationSize).parallel()
+            .collect(() -> new long[genes.size()][MAX_ALLELES],
+                (acc, i) -> {
+                    String g = population[i];
+                    for (int j = 0; j < genes.size(); ++j) {
+                        acc[j][allele(g, 2 * j)]++;
+                        acc[j][allele(g, 2 * j + 1)]++;
+                    }
+                },
+                (a, b) -> {
+                    for (int j = 0; j < a.length; ++j) {
+                        for (int k = 0; k < MAX_ALLELES; ++k) {
+                            a[j][k] += b[j][k];
+                        }
+                    }
+                })).join();
+        for (int j = 0; j < genes.size(); ++j) {
+            for (int k = 0; k < MAX_ALLELES; ++k) {
+                if (counts[j][k] > 0) {
+                    alleles.println(generation + "," + genes.get(j) + "," + k + ","
+                        + (counts[j][k] / (2.0 * populationSize)));
+                }
+            }
+        }
+        alleles.flush();
+
+        float[] sorted = size.clone();
+        Arrays.parallelSort(sorted);
+        double sum = 0;
+        double sumSquares = 0;
+        for (float s : sorted) {
+            sum += s;
+            sumSquares += s * s;
+        }
+        double mean = sum / sorted.length;
+        double stddev = Math.sqrt(Math.max(0, sumSquares / sorted.length - mean * mean));
+        sizes.println(generation + "," + mean + "," + stddev + "," + sorted[0] + ","
+            + percentile(sorted, 0.05) + "," + percentile(sorted, 0.25) + ","
+            + percentile(sorted, 0.5) + "," + percentile(sorted, 0.75) + ","
+            + percentile(sorted, 0.95) + "," + sorted[sorted.length - 1]);
+        sizes.flush();
+    }
+
+    private static int allele(String genes, int index) {
+        if (index >= genes.length()) {
+            return 0;
+        }
+        return Math.min(genes.charAt(index), MAX_ALLELES - 1);
+    }
+
+    private static float percentile(float[] sorted, double p) {
+        return sorted[(int)Math.min(sorted.length - 1, p * sorted.length)];
+    }
+}